@@ -0,0 +1,36 @@
+package com.example.zeromonos.boundary;
+
+import com.example.zeromonos.service.AvailabilityService;
+import com.example.zeromonos.service.DayAvailability;
+import com.example.zeromonos.service.TimeSlots;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/availability")
+public class AvailabilityController {
+
+    private final AvailabilityService availabilityService;
+
+    public AvailabilityController(AvailabilityService availabilityService) {
+        this.availabilityService = availabilityService;
+    }
+
+    // Horários livres por dia útil para o município; o dia cheio vem sem horários
+    @GetMapping
+    public List<DayAvailability> getAvailability(
+            @RequestParam(required = false) String municipality,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return availabilityService.getAvailability(municipality, from, to);
+    }
+
+    // Catálogo de horários
+    @GetMapping("/slots")
+    public List<String> getTimeSlots() {
+        return TimeSlots.ALL;
+    }
+}
@@ -1,25 +1,51 @@
 package com.example.zeromonos.boundary;
 
 import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingChangedEvent;
 import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.data.BookingView;
+import com.example.zeromonos.service.BookingBatchResult;
+import com.example.zeromonos.service.BookingCacheStats;
+import com.example.zeromonos.service.BookingEventStream;
+import com.example.zeromonos.service.BookingExportService;
+import com.example.zeromonos.service.BookingFilter;
+import com.example.zeromonos.service.BookingPage;
 import com.example.zeromonos.service.BookingService;
+import com.example.zeromonos.service.BookingStats;
+import com.example.zeromonos.service.BookingTransitionResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
+// Servlet (Spring MVC); no perfil reactive a mesma API é servida pelo ReactiveBookingController
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/bookings")
 public class BookingController {
 
     private final BookingService bookingService;
+    private final BookingExportService exportService;
+    private final BookingEventStream eventStream;
     private static final Logger logger = LoggerFactory.getLogger(BookingController.class);
 
-    public BookingController(BookingService bookingService) {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public BookingController(BookingService bookingService, BookingExportService exportService,
+                             BookingEventStream eventStream) {
         this.bookingService = bookingService;
+        this.exportService = exportService;
+        this.eventStream = eventStream;
     }
 
     // Criar novo booking
@@ -30,34 +56,131 @@ public class BookingController {
         return bookingService.createBooking(booking);
     }
 
+    // Criar vários bookings de uma vez; cada item é aceite ou rejeitado individualmente
+    @PostMapping("/batch")
+    public List<BookingBatchResult> createBookings(@RequestBody List<Booking> bookings) {
+        logger.info("Criar lote de {} bookings", bookings.size());
+        return bookingService.createBookings(bookings);
+    }
+
+    // Contadores da cache de consultas por token
+    @GetMapping("/cache")
+    public BookingCacheStats getTokenCacheStats() {
+        return bookingService.getTokenCacheStats();
+    }
+
+    // Contagens por estado e por dia, mantidas em memória a cada criação e transição
+    @GetMapping("/stats")
+    public BookingStats getStats(@RequestParam(required = false) String municipality) {
+        return bookingService.getStats(municipality);
+    }
+
     // Encontrar booking pelo token
     @GetMapping("/{token}")
-    public Booking getBooking(@PathVariable String token) {
+    public BookingView getBooking(@PathVariable String token) {
         logger.info("Consultar booking pelo token: {}", token);
-        return bookingService.getBookingByToken(token)
+        return bookingService.getBookingViewByToken(token)
                 .orElseThrow(() -> new RuntimeException("Booking não encontrado"));
     }
 
-    // Listar bookings por município
+    // Listar bookings por página, com filtros opcionais; a página seguinte vem no header X-Next-Cursor
     @GetMapping
-    public List<Booking> getBookingsByMunicipality(@RequestParam(required = false) String municipality) {
-        if (municipality != null ) {
-            logger.info("Listar bookings para município: {}", municipality);
-            return bookingService.getBookingsByMunicipality(municipality);
-        }
-        logger.info("Listar todos os bookings");
-        return bookingService.getAllBookings();
+    public ResponseEntity<List<BookingView>> listBookings(
+            @RequestParam(required = false) String municipality,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int size) {
+        BookingFilter filter = toFilter(municipality, status, from, to);
+        logger.info("Listar bookings: filtro={}, cursor={}, size={}", filter, after, size);
+        return toResponse(bookingService.listBookings(filter, after, size));
+    }
+
+    // Mesma listagem com as entidades completas, incluindo o histórico de estados
+    @GetMapping(params = "include=history")
+    public ResponseEntity<List<Booking>> listBookingsWithHistory(
+            @RequestParam(required = false) String municipality,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int size) {
+        BookingFilter filter = toFilter(municipality, status, from, to);
+        logger.info("Listar bookings com histórico: filtro={}, cursor={}, size={}", filter, after, size);
+        return toResponse(bookingService.listBookingsWithHistory(filter, after, size));
+    }
+
+    // Bookings criados ou transitados depois do cursor (delta sync para quem não mantém SSE);
+    // o cursor para o próximo pedido vem sempre no header X-Next-Cursor
+    @GetMapping("/changes")
+    public ResponseEntity<List<BookingView>> listChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "200") int size) {
+        logger.info("Listar alterações: cursor={}, size={}", since, size);
+        return toResponse(bookingService.listChanges(since, size));
+    }
+
+    // Exportar todos os bookings em NDJSON, em streaming
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBookings() {
+        logger.info("Exportar todos os bookings");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> exportService.writeNdjson(out));
+    }
+
+    // Alterações em tempo real (SSE): evento "booking" com a vista atualizada, "removed" quando é apagado
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@RequestParam(required = false) String municipality) {
+        SseEmitter emitter = new SseEmitter();
+        BookingEventStream.Subscription subscription = eventStream.subscribe(municipality, new BookingEventStream.Subscriber() {
+            @Override
+            public void send(BookingChangedEvent event) throws Exception {
+                emitter.send(SseEmitter.event()
+                        .name(event.removed() ? "removed" : "booking")
+                        .data(event.toView(), MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void close() {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        return emitter;
     }
 
     // Atualizar estado do booking
     @PutMapping("/{token}")
-    public Booking updateBookingStatus(@PathVariable String token, @RequestParam String status) {
+    public BookingView updateBookingStatus(@PathVariable String token, @RequestParam String status) {
+        BookingState newState = parseState(status);
+        logger.info("Atualizar booking token={} para estado={}", token, newState);
+        return bookingService.updateBookingStatus(token, newState);
+    }
+
+    // Atualizar o estado de vários bookings de uma vez; resultado por token
+    @PutMapping("/status")
+    public List<BookingTransitionResult> updateBookingStatuses(@RequestParam String status, @RequestBody List<String> tokens) {
+        BookingState newState = parseState(status);
+        logger.info("Atualizar {} bookings para estado={}", tokens.size(), newState);
+        return bookingService.updateBookingStatuses(tokens, newState);
+    }
+
+    // Cancelar um booking
+    @DeleteMapping("/{token}")
+    public BookingView cancelBooking(@PathVariable String token) {
+        logger.info("Cancelar booking token={}", token);
+        return bookingService.updateBookingStatus(token, BookingState.CANCELADO);
+    }
+
+    static BookingState parseState(String status) {
         try {
-            BookingState newState = BookingState.valueOf(status);
-            logger.info("Atualizar booking token={} para estado={}", token, newState);
-            return bookingService.updateBookingStatus(token, newState);
+            return BookingState.valueOf(status);
         } catch (IllegalArgumentException e) {
-            logger.warn("Tentativa de atualizar booking token={} para estado inválido: {}", token, status);
+            logger.warn("Estado inválido recebido: {}", status);
             throw new ResponseStatusException(
                     HttpStatus.BAD_REQUEST,
                     "Estado inválido: " + status + ". Valores válidos: " + java.util.Arrays.toString(BookingState.values())
@@ -65,10 +188,15 @@ public class BookingController {
         }
     }
 
-    // Cancelar um booking
-    @DeleteMapping("/{token}")
-    public Booking cancelBooking(@PathVariable String token) {
-        logger.info("Cancelar booking token={}", token);
-        return bookingService.updateBookingStatus(token, BookingState.CANCELADO);
+    static BookingFilter toFilter(String municipality, String status, LocalDate from, LocalDate to) {
+        return new BookingFilter(municipality, status != null ? parseState(status) : null, from, to);
+    }
+
+    static <T> ResponseEntity<List<T>> toResponse(BookingPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.example.zeromonos.boundary;
 
+import com.example.zeromonos.service.MunicipioCacheStats;
 import com.example.zeromonos.service.MunicipioService;
 import org.springframework.web.bind.annotation.*;
 
@@ -19,4 +20,10 @@ public class MunicipioController {
     public List<String> getMunicipios() {
         return municipioService.getMunicipios();
     }
+
+    // Idade e contadores da cache do catálogo
+    @GetMapping("/cache")
+    public MunicipioCacheStats getCacheStats() {
+        return municipioService.getCacheStats();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,190 @@
+package com.example.zeromonos.boundary;
+
+import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingChangedEvent;
+import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.data.BookingView;
+import com.example.zeromonos.service.BookingBatchResult;
+import com.example.zeromonos.service.BookingCacheStats;
+import com.example.zeromonos.service.BookingEventStream;
+import com.example.zeromonos.service.BookingFilter;
+import com.example.zeromonos.service.BookingStats;
+import com.example.zeromonos.service.BookingTokenCache;
+import com.example.zeromonos.service.BookingTransitionResult;
+import com.example.zeromonos.service.ReactiveBookingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A API de bookings em WebFlux (perfil reactive), com os mesmos caminhos, parâmetros e respostas
+ * do {@link BookingController}. Nenhum pedido ocupa uma thread do servidor à espera da base de dados.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/bookings")
+public class ReactiveBookingController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveBookingController.class);
+
+    // Entregas e fecho chegam ao sink de threads diferentes: quem encontrar outra emissão em curso
+    // espera por ela em vez de falhar
+    private static final Sinks.EmitFailureHandler SERIALIZED = Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1));
+
+    private final ReactiveBookingService bookingService;
+    private final BookingTokenCache tokenCache;
+    private final BookingEventStream eventStream;
+    private final int eventQueueCapacity;
+
+    public ReactiveBookingController(ReactiveBookingService bookingService, BookingTokenCache tokenCache,
+                                     BookingEventStream eventStream,
+                                     @Value("${bookings.events.queue-capacity:256}") int eventQueueCapacity) {
+        this.bookingService = bookingService;
+        this.tokenCache = tokenCache;
+        this.eventStream = eventStream;
+        this.eventQueueCapacity = eventQueueCapacity;
+    }
+
+    // Criar novo booking
+    @PostMapping
+    public Mono<Booking> createBooking(@RequestBody Booking booking) {
+        logger.info("Criar novo booking: município={}, data={}, timeslot={}",
+                    booking.getMunicipality(), booking.getRequestedDate(), booking.getTimeSlot());
+        return bookingService.createBooking(booking);
+    }
+
+    // Criar vários bookings de uma vez; cada item é aceite ou rejeitado individualmente
+    @PostMapping("/batch")
+    public Mono<List<BookingBatchResult>> createBookings(@RequestBody List<Booking> bookings) {
+        logger.info("Criar lote de {} bookings", bookings.size());
+        return bookingService.createBookings(bookings);
+    }
+
+    // Contadores da cache de consultas por token
+    @GetMapping("/cache")
+    public BookingCacheStats getTokenCacheStats() {
+        return tokenCache.getStats();
+    }
+
+    // Contagens por estado e por dia, mantidas em memória a cada criação e transição
+    @GetMapping("/stats")
+    public BookingStats getStats(@RequestParam(required = false) String municipality) {
+        return bookingService.getStats(municipality);
+    }
+
+    // Encontrar booking pelo token
+    @GetMapping("/{token}")
+    public Mono<BookingView> getBooking(@PathVariable String token) {
+        logger.info("Consultar booking pelo token: {}", token);
+        return bookingService.getBookingViewByToken(token)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Booking não encontrado")));
+    }
+
+    // Listar bookings por página, com filtros opcionais; a página seguinte vem no header X-Next-Cursor
+    @GetMapping
+    public Mono<ResponseEntity<List<BookingView>>> listBookings(
+            @RequestParam(required = false) String municipality,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int size) {
+        BookingFilter filter = BookingController.toFilter(municipality, status, from, to);
+        logger.info("Listar bookings: filtro={}, cursor={}, size={}", filter, after, size);
+        return bookingService.listBookings(filter, after, size).map(BookingController::toResponse);
+    }
+
+    // Mesma listagem com as entidades completas, incluindo o histórico de estados
+    @GetMapping(params = "include=history")
+    public Mono<ResponseEntity<List<Booking>>> listBookingsWithHistory(
+            @RequestParam(required = false) String municipality,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int size) {
+        BookingFilter filter = BookingController.toFilter(municipality, status, from, to);
+        logger.info("Listar bookings com histórico: filtro={}, cursor={}, size={}", filter, after, size);
+        return bookingService.listBookingsWithHistory(filter, after, size).map(BookingController::toResponse);
+    }
+
+    // Bookings criados ou transitados depois do cursor; o cursor seguinte vem sempre no header X-Next-Cursor
+    @GetMapping("/changes")
+    public Mono<ResponseEntity<List<BookingView>>> listChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "200") int size) {
+        logger.info("Listar alterações: cursor={}, size={}", since, size);
+        return bookingService.listChanges(since, size).map(BookingController::toResponse);
+    }
+
+    // Exportar todos os bookings em NDJSON, em streaming
+    @GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BookingView> exportBookings() {
+        logger.info("Exportar todos os bookings");
+        return bookingService.exportBookings();
+    }
+
+    // Alterações em tempo real (SSE): evento "booking" com a vista atualizada, "removed" quando é apagado.
+    // Com a fila do subscritor cheia o envio falha e a ligação é fechada, como no BookingEventStream.
+    // O comentário inicial envia logo os headers, para o EventSource abrir sem esperar pela primeira alteração.
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<BookingView>> streamEvents(@RequestParam(required = false) String municipality) {
+        return Flux.defer(() -> {
+            Sinks.Many<ServerSentEvent<BookingView>> sink = Sinks.many().unicast()
+                    .onBackpressureBuffer(Queues.<ServerSentEvent<BookingView>>get(eventQueueCapacity).get());
+            BookingEventStream.Subscription subscription = eventStream.subscribe(municipality, new BookingEventStream.Subscriber() {
+                @Override
+                public void send(BookingChangedEvent event) {
+                    sink.emitNext(ServerSentEvent.builder(event.toView())
+                            .event(event.removed() ? "removed" : "booking")
+                            .build(), SERIALIZED);
+                }
+
+                @Override
+                public void close() {
+                    sink.emitComplete(SERIALIZED);
+                }
+            });
+            return sink.asFlux()
+                    .startWith(ServerSentEvent.<BookingView>builder().comment("ligado").build())
+                    .doFinally(signal -> subscription.close());
+        });
+    }
+
+    // Atualizar estado do booking
+    @PutMapping("/{token}")
+    public Mono<BookingView> updateBookingStatus(@PathVariable String token, @RequestParam String status) {
+        BookingState newState = BookingController.parseState(status);
+        logger.info("Atualizar booking token={} para estado={}", token, newState);
+        return bookingService.updateBookingStatus(token, newState);
+    }
+
+    // Atualizar o estado de vários bookings de uma vez; resultado por token
+    @PutMapping("/status")
+    public Mono<List<BookingTransitionResult>> updateBookingStatuses(@RequestParam String status, @RequestBody List<String> tokens) {
+        BookingState newState = BookingController.parseState(status);
+        logger.info("Atualizar {} bookings para estado={}", tokens.size(), newState);
+        return bookingService.updateBookingStatuses(tokens, newState);
+    }
+
+    // Cancelar um booking
+    @DeleteMapping("/{token}")
+    public Mono<BookingView> cancelBooking(@PathVariable String token) {
+        logger.info("Cancelar booking token={}", token);
+        return bookingService.updateBookingStatus(token, BookingState.CANCELADO);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.zeromonos.boundary;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Servidor do perfil reactive. Com o Tomcat também no classpath o Spring Boot escolhê-lo-ia
+ * (WebFlux sobre o adaptador servlet); o Netty serve todos os pedidos com um event loop fixo.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("reactive")
+public class ReactiveServerConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.zeromonos.boundary;
+
+import com.example.zeromonos.service.StorageBackup;
+import com.example.zeromonos.service.StorageBackupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+@RestController
+@Profile("persistent")
+@RequestMapping("/api/storage")
+public class StorageController {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageController.class);
+
+    private final StorageBackupService backupService;
+
+    public StorageController(StorageBackupService backupService) {
+        this.backupService = backupService;
+    }
+
+    // Cópia de segurança online da base de dados
+    @PostMapping("/backup")
+    public StorageBackup backup() {
+        logger.info("Cópia de segurança pedida");
+        return backupService.backup();
+    }
+
+    // Cópias de segurança mantidas, da mais recente para a mais antiga
+    @GetMapping("/backups")
+    public List<String> listBackups() throws IOException {
+        return backupService.listBackups().stream().map(Path::toString).toList();
+    }
+}
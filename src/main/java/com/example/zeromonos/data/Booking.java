@@ -1,6 +1,8 @@
 package com.example.zeromonos.data;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -8,8 +10,20 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(BookingEntityListener.class)
+@Table(indexes = {
+        @Index(name = "idx_booking_municipality_date", columnList = "municipality, requestedDate"),
+        @Index(name = "idx_booking_date_slot_status", columnList = "requestedDate, timeSlot, status"),
+        @Index(name = "idx_booking_status", columnList = "status"),
+        @Index(name = "idx_booking_date_id", columnList = "requestedDate, id"),
+        @Index(name = "idx_booking_status_date", columnList = "status, requestedDate"),
+        @Index(name = "idx_booking_change_seq", columnList = "changeSeq, id"),
+        @Index(name = "uk_booking_token", columnList = "token", unique = true)
+})
 public class Booking {
 
+    public static final int MIN_DAYS_AHEAD = 3;    // Antecedência mínima de um pedido, em dias
+
     @Id
     @GeneratedValue
     private UUID id;
@@ -18,17 +32,48 @@ public class Booking {
     private String description;
     private LocalDate requestedDate;
     private String timeSlot;
-    private String token;
+
+    // 16 bytes na base de dados; na API é apresentado em base62 (ver BookingTokens)
+    @Column(nullable = false, updatable = false)
+    private UUID token;
 
     @Enumerated(EnumType.STRING)
     private BookingState status;
 
+    // Última alteração (criação ou transição), atribuída pela ChangeSequence; base do delta sync
+    @JsonIgnore
+    private Long changeSeq;
+
     @OneToMany(mappedBy = "booking", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     private List<BookingStateHistory> stateHistory = new ArrayList<>();
 
+    // Usado pela JPA ao carregar linhas e pelo Jackson: não gera token nem histórico
     public Booking() {
-        this.token = UUID.randomUUID().toString();
-        addState(BookingState.RECEBIDO);
+    }
+
+    // Novo pedido, já com token e estado inicial
+    public static Booking newRequest() {
+        Booking booking = new Booking();
+        booking.initializeRequest();
+        return booking;
+    }
+
+    // Token e estado inicial de um pedido novo; também corre antes da primeira gravação,
+    // com o gerador por omissão, para os bookings gravados sem passar pelo BookingService
+    @PrePersist
+    public void initializeRequest() {
+        initializeRequest(BookingTokens::generate);
+    }
+
+    // Pedido novo com o token tirado do gerador configurado (bookings.token.generator)
+    public void initializeRequest(BookingTokenGenerator generator) {
+        if (token == null) {
+            token = generator.next();
+        }
+        if (status == null) {
+            addState(BookingState.RECEBIDO);
+        }
     }
 
     // Regras de negócio
@@ -53,7 +98,7 @@ public class Booking {
         }
 
         // Deve ter pelo menos 3 dias de antecedência
-        if (requestedDate.isBefore(LocalDate.now().plusDays(3))) {
+        if (requestedDate.isBefore(LocalDate.now().plusDays(MIN_DAYS_AHEAD))) {
             throw new IllegalArgumentException("O pedido deve ser feito com pelo menos 3 dias de antecedência");
         }
     }
@@ -71,6 +116,8 @@ public class Booking {
         this.stateHistory.add(new BookingStateHistory(this, newState));
     }
 
+    @JsonIgnore
+    public UUID getId() { return id; }
     public String getMunicipality() { return municipality; }
     public void setMunicipality(String municipality) { this.municipality = municipality; }
     public String getDescription() { return description; }
@@ -79,7 +126,12 @@ public class Booking {
     public void setRequestedDate(LocalDate requestedDate) { this.requestedDate = requestedDate; }
     public String getTimeSlot() { return timeSlot; }
     public void setTimeSlot(String timeSlot) { this.timeSlot = timeSlot; }
-    public String getToken() { return token; }
+    public String getToken() { return token == null ? null : BookingTokens.format(token); }
+    @JsonIgnore
+    public UUID getTokenValue() { return token; }
     public BookingState getStatus() { return status; }
+    @JsonIgnore
+    public Long getChangeSeq() { return changeSeq; }
+    void setChangeSeq(Long changeSeq) { this.changeSeq = changeSeq; }
     public List<BookingStateHistory> getStateHistory() { return stateHistory; }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.example.zeromonos.data;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Uma linha do delta sync: a projeção do booking e o número da sua última alteração,
+ * que serve de posição para o cursor seguinte.
+ */
+public record BookingChange(BookingView view, long changeSeq) {
+
+    // Usado pela query de alterações
+    public BookingChange(UUID token, String municipality, String description, LocalDate requestedDate,
+                         String timeSlot, BookingState status, UUID id, Long changeSeq) {
+        this(new BookingView(token, municipality, description, requestedDate, timeSlot, status, id), changeSeq);
+    }
+}
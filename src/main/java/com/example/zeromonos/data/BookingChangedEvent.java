@@ -0,0 +1,46 @@
+package com.example.zeromonos.data;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Fotografia de um booking no momento em que foi gravado ou removido, com o changeSeq dessa escrita.
+ * Publicado pelo {@link BookingEntityListener}, ou pelas transições em JPQL, para quem mantém
+ * estado derivado em memória.
+ */
+public record BookingChangedEvent(
+        String token,
+        String municipality,
+        String description,
+        LocalDate requestedDate,
+        String timeSlot,
+        BookingState status,
+        UUID id,
+        long changeSeq,
+        boolean removed
+) {
+
+    public static BookingChangedEvent saved(Booking booking) {
+        return of(booking, false);
+    }
+
+    public static BookingChangedEvent removed(Booking booking) {
+        return of(booking, true);
+    }
+
+    public static BookingChangedEvent saved(BookingView view, long changeSeq) {
+        return new BookingChangedEvent(view.token(), view.municipality(), view.description(),
+                view.requestedDate(), view.timeSlot(), view.status(), view.id(), changeSeq, false);
+    }
+
+    // A mesma fotografia na forma servida pelos endpoints de leitura
+    public BookingView toView() {
+        return new BookingView(token, municipality, description, requestedDate, timeSlot, status, id);
+    }
+
+    private static BookingChangedEvent of(Booking booking, boolean removed) {
+        return new BookingChangedEvent(booking.getToken(), booking.getMunicipality(), booking.getDescription(),
+                booking.getRequestedDate(), booking.getTimeSlot(), booking.getStatus(), booking.getId(),
+                booking.getChangeSeq() == null ? 0 : booking.getChangeSeq(), removed);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.zeromonos.data;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Numera cada escrita de {@link Booking} com a {@link ChangeSequence} e publica um
+ * {@link BookingChangedEvent}, incluindo nas escritas feitas diretamente pelo repositório.
+ * Instanciado pelo Hibernate através do contentor de beans do Spring.
+ */
+public class BookingEntityListener {
+
+    private final ApplicationEventPublisher publisher;
+    // Resolvida só na primeira escrita: a sequência depende do EntityManager que cria este listener
+    private final ObjectProvider<ChangeSequence> changeSequence;
+
+    public BookingEntityListener(ApplicationEventPublisher publisher, ObjectProvider<ChangeSequence> changeSequence) {
+        this.publisher = publisher;
+        this.changeSequence = changeSequence;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void beforeSave(Booking booking) {
+        booking.setChangeSeq(changeSequence.getObject().next());
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void afterSave(Booking booking) {
+        publisher.publishEvent(BookingChangedEvent.saved(booking));
+    }
+
+    @PostRemove
+    public void afterRemove(Booking booking) {
+        publisher.publishEvent(BookingChangedEvent.removed(booking));
+    }
+}
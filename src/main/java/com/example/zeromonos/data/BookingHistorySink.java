@@ -0,0 +1,15 @@
+package com.example.zeromonos.data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Destino das linhas de histórico das transições de estado. Sem nenhum bean configurado são
+ * gravadas na própria transação ({@link JpaHistorySink}); com bookings.history.mode=write-behind
+ * são gravadas depois, em lote, por um escritor em background.
+ */
+public interface BookingHistorySink {
+
+    // Chamado dentro da transação que alterou o estado do booking
+    void record(UUID bookingId, BookingState status, LocalDateTime timestamp);
+}
@@ -1,12 +1,62 @@
 package com.example.zeromonos.data;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface BookingRepository extends JpaRepository<Booking, UUID> {
-    Optional<Booking> findByToken(String token);
-    List<Booking> findByMunicipality(String municipality);
-}
\ No newline at end of file
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+public interface BookingRepository extends JpaRepository<Booking, UUID>, JpaSpecificationExecutor<Booking>, BookingViewQueries,
+        BookingTransitions {
+    Optional<Booking> findByToken(UUID token);
+
+    @Query("select new com.example.zeromonos.data.BookingView(b.token, b.municipality, b.description, "
+            + "b.requestedDate, b.timeSlot, b.status, b.id) from Booking b where b.token = :token")
+    Optional<BookingView> findViewByToken(@Param("token") UUID token);
+
+    // A mesma projeção com o número da última alteração, que versiona a entrada na cache de tokens
+    @Query("select new com.example.zeromonos.data.BookingChange(b.token, b.municipality, b.description, "
+            + "b.requestedDate, b.timeSlot, b.status, b.id, coalesce(b.changeSeq, 0)) from Booking b where b.token = :token")
+    Optional<BookingChange> findChangeByToken(@Param("token") UUID token);
+
+    // Projeções de vários bookings por token, para transições em bloco
+    @Query("select new com.example.zeromonos.data.BookingView(b.token, b.municipality, b.description, "
+            + "b.requestedDate, b.timeSlot, b.status, b.id) from Booking b where b.token in :tokens")
+    List<BookingView> findViewsByTokenIn(@Param("tokens") Collection<UUID> tokens);
+
+    // Inicializa numa só query o histórico de bookings já carregados (ex.: uma página)
+    @Query("select distinct b from Booking b left join fetch b.stateHistory where b in :bookings")
+    List<Booking> fetchHistory(@Param("bookings") Collection<Booking> bookings);
+
+    // Contagens de admissão, resolvidas pelos índices declarados em Booking
+    long countByMunicipalityAndRequestedDate(String municipality, LocalDate requestedDate);
+    boolean existsByRequestedDateAndTimeSlotAndStatusNotIn(LocalDate requestedDate, String timeSlot, Collection<BookingState> statuses);
+    long countByStatusIn(Collection<BookingState> statuses);
+
+    // Alterações depois da posição (changeSeq, id) e até à marca de água, pelo índice idx_booking_change_seq
+    @Query("select new com.example.zeromonos.data.BookingChange(b.token, b.municipality, b.description, "
+            + "b.requestedDate, b.timeSlot, b.status, b.id, b.changeSeq) from Booking b "
+            + "where (b.changeSeq > :seq or (b.changeSeq = :seq and b.id > :id)) and b.changeSeq <= :watermark "
+            + "order by b.changeSeq, b.id")
+    List<BookingChange> findChangesAfter(@Param("seq") long seq, @Param("id") UUID id,
+                                         @Param("watermark") long watermark, Limit limit);
+
+    // Cursor sobre a tabela inteira para exportação; tem de ser consumido dentro de uma transação
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500")
+    })
+    @Query("select new com.example.zeromonos.data.BookingView(b.token, b.municipality, b.description, "
+            + "b.requestedDate, b.timeSlot, b.status, b.id) from Booking b order by b.requestedDate, b.id")
+    Stream<BookingView> streamAllForExport();
+}
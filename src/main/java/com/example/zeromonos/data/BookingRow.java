@@ -0,0 +1,32 @@
+package com.example.zeromonos.data;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Linha da tabela booking lida por R2DBC (perfil reactive). Só serve leituras: as gravações
+ * continuam a passar pela entidade {@link Booking}, pelos listeners e pela ChangeSequence.
+ */
+@Table("booking")
+public record BookingRow(
+        @Id UUID id,
+        UUID token,
+        String municipality,
+        String description,
+        LocalDate requestedDate,
+        String timeSlot,
+        BookingState status,
+        Long changeSeq
+) {
+
+    public BookingView toView() {
+        return new BookingView(token, municipality, description, requestedDate, timeSlot, status, id);
+    }
+
+    public BookingChange toChange() {
+        return new BookingChange(toView(), changeSeq == null ? 0 : changeSeq);
+    }
+}
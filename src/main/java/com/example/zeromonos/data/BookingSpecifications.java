@@ -0,0 +1,39 @@
+package com.example.zeromonos.data;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Filtros e predicado de keyset para a listagem paginada de bookings.
+ * Ordem da paginação: (requestedDate, id).
+ */
+public final class BookingSpecifications {
+
+    private BookingSpecifications() {
+    }
+
+    public static Specification<Booking> municipality(String municipality) {
+        return (root, query, cb) -> cb.equal(root.get("municipality"), municipality);
+    }
+
+    public static Specification<Booking> status(BookingState status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Booking> requestedFrom(LocalDate from) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("requestedDate"), from);
+    }
+
+    public static Specification<Booking> requestedTo(LocalDate to) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("requestedDate"), to);
+    }
+
+    // Tudo o que vem depois de (date, id) na ordem da paginação
+    public static Specification<Booking> after(LocalDate date, UUID id) {
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("requestedDate"), date),
+                cb.and(cb.equal(root.get("requestedDate"), date), cb.greaterThan(root.<UUID>get("id"), id)));
+    }
+}
@@ -1,9 +1,46 @@
 package com.example.zeromonos.data;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum BookingState {
     RECEBIDO,
     ATRIBUIDO,
     EM_PROG,
     CONCLUIDO,
-    CANCELADO
-}
\ No newline at end of file
+    CANCELADO;
+
+    // Transições permitidas: estado atual -> estados seguintes
+    private static final Map<BookingState, Set<BookingState>> NEXT = new EnumMap<>(BookingState.class);
+    // O inverso, usado nos UPDATE condicionais: estado seguinte -> estados de origem
+    private static final Map<BookingState, Set<BookingState>> FROM = new EnumMap<>(BookingState.class);
+
+    static {
+        NEXT.put(RECEBIDO, EnumSet.of(EM_PROG, CANCELADO));
+        NEXT.put(ATRIBUIDO, EnumSet.noneOf(BookingState.class));
+        NEXT.put(EM_PROG, EnumSet.of(CONCLUIDO, CANCELADO));
+        NEXT.put(CONCLUIDO, EnumSet.noneOf(BookingState.class));
+        NEXT.put(CANCELADO, EnumSet.noneOf(BookingState.class));
+
+        for (BookingState state : values()) {
+            FROM.put(state, EnumSet.noneOf(BookingState.class));
+        }
+        NEXT.forEach((from, targets) -> targets.forEach(target -> FROM.get(target).add(from)));
+    }
+
+    public boolean canTransitionTo(BookingState next) {
+        return NEXT.get(this).contains(next);
+    }
+
+    // Se é possível chegar a target a partir deste estado, por zero ou mais transições
+    public boolean canReach(BookingState target) {
+        return this == target || NEXT.get(this).stream().anyMatch(next -> next.canReach(target));
+    }
+
+    public static Set<BookingState> allowedFrom(BookingState target) {
+        return Collections.unmodifiableSet(FROM.get(target));
+    }
+}
@@ -21,9 +21,13 @@ public class BookingStateHistory {
     public BookingStateHistory() {}
 
     public BookingStateHistory(Booking booking, BookingState status) {
+        this(booking, status, LocalDateTime.now());
+    }
+
+    public BookingStateHistory(Booking booking, BookingState status, LocalDateTime timestamp) {
         this.booking = booking;
         this.status = status;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = timestamp;
     }
 
     public LocalDateTime getTimestamp() { return timestamp; }
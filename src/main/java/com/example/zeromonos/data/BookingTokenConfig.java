@@ -0,0 +1,22 @@
+package com.example.zeromonos.data;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Gerador de tokens escolhido em bookings.token.generator, injetado no BookingService,
+ * que emite os tokens dos pedidos novos.
+ */
+@Configuration(proxyBeanMethods = false)
+public class BookingTokenConfig {
+
+    @Bean
+    public BookingTokenGenerator bookingTokenGenerator(@Value("${bookings.token.generator:drbg}") String generator) {
+        return switch (generator) {
+            case "drbg" -> BookingTokenGenerator.drbg();
+            case "jdk" -> BookingTokenGenerator.jdk();
+            default -> throw new IllegalArgumentException("bookings.token.generator inválido: " + generator);
+        };
+    }
+}
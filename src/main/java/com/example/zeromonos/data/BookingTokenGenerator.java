@@ -0,0 +1,46 @@
+package com.example.zeromonos.data;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Origem dos valores aleatórios dos tokens. Configurável com bookings.token.generator.
+ */
+@FunctionalInterface
+public interface BookingTokenGenerator {
+
+    UUID next();
+
+    // DRBGs partilhados, um por processador e semeados uma só vez. Cada DRBG serializa a geração
+    // internamente, por isso cada token usa um ao acaso; nada fica associado à thread, que com
+    // threads virtuais é nova a cada pedido
+    static BookingTokenGenerator drbg() {
+        SecureRandom[] pool = new SecureRandom[Runtime.getRuntime().availableProcessors()];
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = newDrbg();
+            // A semente é lida da fonte de entropia no primeiro uso: fica feito aqui e não num pedido
+            pool[i].nextBytes(new byte[16]);
+        }
+        return () -> {
+            byte[] bytes = new byte[16];
+            pool[ThreadLocalRandom.current().nextInt(pool.length)].nextBytes(bytes);
+            bytes[6] = (byte) ((bytes[6] & 0x0f) | 0x40); // versão 4
+            bytes[8] = (byte) ((bytes[8] & 0x3f) | 0x80); // variante IETF
+            return BookingTokens.fromBytes(bytes);
+        };
+    }
+
+    static BookingTokenGenerator jdk() {
+        return UUID::randomUUID;
+    }
+
+    private static SecureRandom newDrbg() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.zeromonos.data;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Tokens de booking: guardados como UUID (16 bytes) e apresentados na API em base62,
+ * com 22 caracteres. Os tokens antigos, no formato UUID com hífenes, continuam a ser aceites.
+ */
+public final class BookingTokens {
+
+    public static final int LENGTH = 22;
+
+    private static final char[] ALPHABET =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final int BASE = ALPHABET.length;
+    private static final int LEGACY_LENGTH = 36;
+
+    // Para os bookings gravados sem passar pelo BookingService, que usa o gerador configurado
+    private static final BookingTokenGenerator DEFAULT_GENERATOR = BookingTokenGenerator.drbg();
+
+    private BookingTokens() {
+    }
+
+    public static UUID generate() {
+        return DEFAULT_GENERATOR.next();
+    }
+
+    public static String format(UUID token) {
+        // 128 bits como quatro palavras de 32 bits sem sinal, divididas sucessivamente por 62
+        long[] words = {
+                token.getMostSignificantBits() >>> 32, token.getMostSignificantBits() & 0xffffffffL,
+                token.getLeastSignificantBits() >>> 32, token.getLeastSignificantBits() & 0xffffffffL
+        };
+        char[] out = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            long remainder = 0;
+            for (int w = 0; w < words.length; w++) {
+                long current = (remainder << 32) | words[w];
+                words[w] = current / BASE;
+                remainder = current % BASE;
+            }
+            out[i] = ALPHABET[(int) remainder];
+        }
+        return new String(out);
+    }
+
+    // Token recebido na API, em base62 ou no formato UUID antigo; vazio se não for válido
+    public static Optional<UUID> parse(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        if (token.length() == LEGACY_LENGTH) {
+            try {
+                return Optional.of(UUID.fromString(token));
+            } catch (IllegalArgumentException e) {
+                return Optional.empty();
+            }
+        }
+        if (token.length() != LENGTH) {
+            return Optional.empty();
+        }
+
+        long[] words = new long[4];
+        for (int i = 0; i < LENGTH; i++) {
+            int digit = digit(token.charAt(i));
+            if (digit < 0) {
+                return Optional.empty();
+            }
+            long carry = digit;
+            for (int w = words.length - 1; w >= 0; w--) {
+                long current = words[w] * BASE + carry;
+                words[w] = current & 0xffffffffL;
+                carry = current >>> 32;
+            }
+            // 62^22 excede 2^128: um valor que transborda não é um token
+            if (carry != 0) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new UUID((words[0] << 32) | words[1], (words[2] << 32) | words[3]));
+    }
+
+    static UUID fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 36;
+        }
+        return -1;
+    }
+}
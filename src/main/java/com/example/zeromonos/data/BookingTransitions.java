@@ -0,0 +1,19 @@
+package com.example.zeromonos.data;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Transições de estado num só UPDATE condicional, implementadas em {@link BookingTransitionsImpl}.
+ */
+public interface BookingTransitions {
+
+    // Aplica a transição se o estado atual o permitir; vazio se nenhuma linha foi alterada
+    Optional<BookingView> transition(UUID token, BookingState next);
+
+    // O mesmo para vários tokens, todos elegíveis quando foram lidos. Os que entretanto mudaram de
+    // estado ficam como estão; devolve só as vistas das linhas alteradas
+    List<BookingView> transitionAll(Collection<UUID> tokens, BookingState next);
+}
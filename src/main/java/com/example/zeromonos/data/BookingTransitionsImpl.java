@@ -0,0 +1,96 @@
+package com.example.zeromonos.data;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+class BookingTransitionsImpl implements BookingTransitions {
+
+    private static final String SELECT_VIEW = "select new com.example.zeromonos.data.BookingView(b.token, "
+            + "b.municipality, b.description, b.requestedDate, b.timeSlot, b.status, b.id) from Booking b ";
+
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher publisher;
+    private final BookingHistorySink historySink;
+    private final ChangeSequence changeSequence;
+
+    // Sem outro BookingHistorySink configurado, o histórico é gravado na própria transação
+    BookingTransitionsImpl(EntityManager entityManager, ApplicationEventPublisher publisher,
+                           ObjectProvider<BookingHistorySink> historySinks, ChangeSequence changeSequence) {
+        this.entityManager = entityManager;
+        this.publisher = publisher;
+        this.changeSequence = changeSequence;
+        this.historySink = historySinks.getIfAvailable(() -> new JpaHistorySink(entityManager));
+    }
+
+    @Override
+    public Optional<BookingView> transition(UUID token, BookingState next) {
+        // Compare-and-set: só altera a linha se o estado atual for uma das origens permitidas
+        long seq = changeSequence.next();
+        int updated = entityManager.createQuery(
+                        "update Booking b set b.status = :next, b.changeSeq = :seq "
+                                + "where b.token = :token and b.status in :from")
+                .setParameter("next", next)
+                .setParameter("seq", seq)
+                .setParameter("token", token)
+                .setParameter("from", BookingState.allowedFrom(next))
+                .executeUpdate();
+        if (updated == 0) {
+            return Optional.empty();
+        }
+
+        List<BookingView> views = entityManager.createQuery(SELECT_VIEW + "where b.token = :token", BookingView.class)
+                .setParameter("token", token)
+                .getResultList();
+        record(views, next, seq);
+        return Optional.of(views.get(0));
+    }
+
+    @Override
+    public List<BookingView> transitionAll(Collection<UUID> tokens, BookingState next) {
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        // Um só número para o lote inteiro: o delta sync desempata pelo id
+        long seq = changeSequence.next();
+        Set<BookingState> from = BookingState.allowedFrom(next);
+        int updated = entityManager.createQuery(
+                        "update Booking b set b.status = :next, b.changeSeq = :seq "
+                                + "where b.token in :tokens and b.status in :from")
+                .setParameter("next", next)
+                .setParameter("seq", seq)
+                .setParameter("tokens", tokens)
+                .setParameter("from", from)
+                .executeUpdate();
+        if (updated == 0) {
+            return List.of();
+        }
+
+        // As linhas alteradas ficam bloqueadas até ao commit e são as únicas com este número:
+        // o histórico cobre exatamente essas
+        List<BookingView> views = entityManager.createQuery(
+                        SELECT_VIEW + "where b.token in :tokens and b.changeSeq = :seq", BookingView.class)
+                .setParameter("tokens", tokens)
+                .setParameter("seq", seq)
+                .getResultList();
+        record(views, next, seq);
+        return views;
+    }
+
+    // Os UPDATE em JPQL não passam pelo BookingEntityListener, por isso o evento é publicado aqui
+    private void record(List<BookingView> views, BookingState next, long seq) {
+        LocalDateTime now = LocalDateTime.now();
+        for (BookingView view : views) {
+            historySink.record(view.id(), next, now);
+            publisher.publishEvent(BookingChangedEvent.saved(view, seq));
+        }
+    }
+}
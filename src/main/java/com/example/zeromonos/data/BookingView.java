@@ -0,0 +1,28 @@
+package com.example.zeromonos.data;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Projeção de leitura de um booking, construída diretamente pela query
+ * (sem hidratar a entidade nem o seu histórico).
+ * O id só serve para a paginação por keyset e não é serializado.
+ */
+public record BookingView(
+        String token,
+        String municipality,
+        String description,
+        LocalDate requestedDate,
+        String timeSlot,
+        BookingState status,
+        @JsonIgnore UUID id
+) {
+
+    // Usado pelas queries: o token vem da base de dados como UUID
+    public BookingView(UUID token, String municipality, String description, LocalDate requestedDate,
+                       String timeSlot, BookingState status, UUID id) {
+        this(BookingTokens.format(token), municipality, description, requestedDate, timeSlot, status, id);
+    }
+}
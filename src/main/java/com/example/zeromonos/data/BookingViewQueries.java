@@ -0,0 +1,14 @@
+package com.example.zeromonos.data;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Queries de projeção com filtros dinâmicos, implementadas em {@link BookingViewQueriesImpl}.
+ */
+public interface BookingViewQueries {
+
+    List<BookingView> findViews(Specification<Booking> spec, Sort sort, int limit);
+}
@@ -0,0 +1,63 @@
+package com.example.zeromonos.data;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sequência monótona gravada em {@link Booking#getChangeSeq()} a cada criação ou transição.
+ * Os números são atribuídos antes do commit, por isso uma transação pode terminar depois de
+ * outra que recebeu um número maior. A marca de água é o maior número abaixo do qual todas as
+ * transações já terminaram: quem lê alterações até lá nunca salta uma que ainda esteja por chegar.
+ */
+@Component
+public class ChangeSequence {
+
+    private final EntityManager entityManager;
+
+    private final AtomicLong last = new AtomicLong();
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+
+    public ChangeSequence(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @PostConstruct
+    public void init() {
+        Long max = entityManager.createQuery("select max(b.changeSeq) from Booking b", Long.class).getSingleResult();
+        last.set(max == null ? 0 : max);
+    }
+
+    // Próximo número; fica em curso até a transação atual terminar (commit ou rollback)
+    public long next() {
+        // Registado antes de ser visível em last, para a marca de água nunca o ultrapassar
+        long seq;
+        synchronized (this) {
+            seq = last.get() + 1;
+            inFlight.add(seq);
+            last.set(seq);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    inFlight.remove(seq);
+                }
+            });
+        } else {
+            inFlight.remove(seq);
+        }
+        return seq;
+    }
+
+    public long watermark() {
+        long issued = last.get();
+        Long oldest = inFlight.isEmpty() ? null : inFlight.first();
+        return oldest == null ? issued : Math.min(issued, oldest - 1);
+    }
+}
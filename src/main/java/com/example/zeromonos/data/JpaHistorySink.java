@@ -0,0 +1,21 @@
+package com.example.zeromonos.data;
+
+import jakarta.persistence.EntityManager;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Histórico inserido por referência (sem carregar o booking) e gravado em JDBC batch no flush
+class JpaHistorySink implements BookingHistorySink {
+
+    private final EntityManager entityManager;
+
+    JpaHistorySink(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public void record(UUID bookingId, BookingState status, LocalDateTime timestamp) {
+        entityManager.persist(new BookingStateHistory(entityManager.getReference(Booking.class, bookingId), status, timestamp));
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.zeromonos.data;
+
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Queries reativas com filtros dinâmicos, implementadas em {@link ReactiveBookingQueriesImpl}.
+ */
+public interface ReactiveBookingQueries {
+
+    // Página por keyset (requestedDate, id) depois de (afterDate, afterId); argumentos a null não filtram
+    Flux<BookingRow> findPage(String municipality, BookingState status, LocalDate from, LocalDate to,
+                              LocalDate afterDate, UUID afterId, int limit);
+}
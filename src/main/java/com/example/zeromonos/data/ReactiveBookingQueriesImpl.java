@@ -0,0 +1,59 @@
+package com.example.zeromonos.data;
+
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+class ReactiveBookingQueriesImpl implements ReactiveBookingQueries {
+
+    private static final String SELECT = "SELECT id, token, municipality, description, requested_date, time_slot, "
+            + "status, change_seq FROM booking";
+
+    private final R2dbcEntityTemplate template;
+
+    ReactiveBookingQueriesImpl(R2dbcEntityTemplate template) {
+        this.template = template;
+    }
+
+    @Override
+    public Flux<BookingRow> findPage(String municipality, BookingState status, LocalDate from, LocalDate to,
+                                     LocalDate afterDate, UUID afterId, int limit) {
+        List<String> where = new ArrayList<>();
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (municipality != null) {
+            where.add("municipality = :municipality");
+            params.put("municipality", municipality);
+        }
+        if (status != null) {
+            // O driver envia texto como CLOB, que o H2 não converte diretamente para a coluna ENUM
+            where.add("status = CAST(:status AS VARCHAR(32))");
+            params.put("status", status.name());
+        }
+        if (from != null) {
+            where.add("requested_date >= :from");
+            params.put("from", from);
+        }
+        if (to != null) {
+            where.add("requested_date <= :to");
+            params.put("to", to);
+        }
+        if (afterDate != null) {
+            where.add("(requested_date > :afterDate OR (requested_date = :afterDate AND id > :afterId))");
+            params.put("afterDate", afterDate);
+            params.put("afterId", afterId);
+        }
+        params.put("limit", limit);
+
+        String sql = SELECT + (where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where))
+                + " ORDER BY requested_date, id LIMIT :limit";
+        DatabaseClient.GenericExecuteSpec spec = template.getDatabaseClient().sql(sql).bindValues(params);
+        return spec.map((row, metadata) -> template.getConverter().read(BookingRow.class, row, metadata)).all();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.zeromonos.data;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Leituras não bloqueantes da tabela booking por R2DBC, usadas pela variante reativa da API.
+ */
+public interface ReactiveBookingRepository extends R2dbcRepository<BookingRow, UUID>, ReactiveBookingQueries {
+
+    Mono<BookingRow> findByToken(UUID token);
+
+    // Mesma ordem e mesma marca de água do BookingRepository.findChangesAfter
+    @Query("SELECT id, token, municipality, description, requested_date, time_slot, status, change_seq FROM booking "
+            + "WHERE (change_seq > :seq OR (change_seq = :seq AND id > :id)) AND change_seq <= :watermark "
+            + "ORDER BY change_seq, id LIMIT :limit")
+    Flux<BookingRow> findChangesAfter(@Param("seq") long seq, @Param("id") UUID id,
+                                      @Param("watermark") long watermark, @Param("limit") int limit);
+
+    // Tabela inteira, emitida à medida que o cliente consome (backpressure até à base de dados)
+    Flux<BookingRow> findAllBy(Sort sort);
+}
@@ -0,0 +1,20 @@
+package com.example.zeromonos.service;
+
+import java.time.LocalDate;
+
+/**
+ * Contagens de que as regras de admissão do {@link BookingService} precisam.
+ * Por omissão vêm do {@link BookingLedger}; com {@code bookings.admission.source=database}
+ * são perguntadas à base de dados através de queries indexadas.
+ */
+public interface AdmissionCounts {
+
+    // Bookings pedidos para o município nesse dia, em qualquer estado
+    long countForDay(String municipality, LocalDate date);
+
+    // Existe um booking não cancelado para a mesma data e horário
+    boolean isSlotTaken(LocalDate date, String timeSlot);
+
+    // Bookings ainda não concluídos nem cancelados
+    long countActive();
+}
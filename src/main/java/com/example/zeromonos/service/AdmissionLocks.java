@@ -0,0 +1,51 @@
+package com.example.zeromonos.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Locks em faixas (striped) para serializar apenas as admissões que competem pela mesma chave.
+ * As faixas são sempre adquiridas por ordem crescente, pelo que pedidos com várias chaves
+ * não entram em deadlock.
+ */
+@Component
+public class AdmissionLocks {
+
+    private final ReentrantLock[] stripes;
+
+    public AdmissionLocks(@Value("${bookings.admission.lock-stripes:64}") int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("bookings.admission.lock-stripes tem de ser positivo");
+        }
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public Held acquire(Object... keys) {
+        int[] indexes = Arrays.stream(keys).mapToInt(this::stripeFor).sorted().distinct().toArray();
+        for (int i = 0; i < indexes.length; i++) {
+            stripes[indexes[i]].lock();
+        }
+        return () -> {
+            for (int i = indexes.length - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        };
+    }
+
+    private int stripeFor(Object key) {
+        int h = key.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), stripes.length);
+    }
+
+    @FunctionalInterface
+    public interface Held extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.zeromonos.service;
+
+import com.example.zeromonos.data.Booking;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calendário de disponibilidade para o formulário do cidadão, lido só da memória do
+ * {@link BookingLedger}: por dia, uma máscara de horários ocupados e o contador do município.
+ * Aplica as mesmas regras da admissão (limite diário, horário único, dias úteis, antecedência).
+ */
+@Service
+public class AvailabilityService {
+
+    public static final int MAX_DAYS = 92;            // Máximo de dias por pedido de disponibilidade
+    private static final int DEFAULT_DAYS = 31;
+
+    private final BookingLedger ledger;
+    private final MunicipioService municipioService;
+
+    public AvailabilityService(BookingLedger ledger, MunicipioService municipioService) {
+        this.ledger = ledger;
+        this.municipioService = municipioService;
+    }
+
+    // Dias úteis entre from e to (inclusive); sem datas, os próximos 31 dias a partir do primeiro reservável
+    public List<DayAvailability> getAvailability(String municipality, LocalDate from, LocalDate to) {
+        if (municipality == null || municipality.isBlank()) {
+            throw new IllegalArgumentException("Município é obrigatório.");
+        }
+        String canonical = municipioService.findCanonicalName(municipality)
+                .orElseThrow(() -> new IllegalArgumentException("Município inválido: " + municipality));
+
+        LocalDate earliest = LocalDate.now().plusDays(Booking.MIN_DAYS_AHEAD);
+        LocalDate start = from == null || from.isBefore(earliest) ? earliest : from;
+        LocalDate end = to != null ? to : start.plusDays(DEFAULT_DAYS - 1);
+        if (end.isBefore(start)) {
+            return List.of();
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_DAYS) {
+            throw new IllegalArgumentException("Intervalo inválido: no máximo " + MAX_DAYS + " dias");
+        }
+
+        List<DayAvailability> days = new ArrayList<>();
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            int remaining = (int) Math.max(0, BookingService.LIMITE_DIARIO - ledger.countForDay(canonical, date));
+            List<String> freeSlots = remaining == 0 ? List.of() : TimeSlots.free(ledger.takenSlots(date));
+            days.add(new DayAvailability(date, remaining, freeSlots));
+        }
+        return days;
+    }
+}
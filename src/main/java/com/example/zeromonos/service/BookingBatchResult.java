@@ -0,0 +1,16 @@
+package com.example.zeromonos.service;
+
+import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingState;
+
+// Resultado de um item do lote: token e estado se foi criado, motivo se foi rejeitado
+public record BookingBatchResult(int index, String token, BookingState status, String error) {
+
+    public static BookingBatchResult created(int index, Booking booking) {
+        return new BookingBatchResult(index, booking.getToken(), booking.getStatus(), null);
+    }
+
+    public static BookingBatchResult rejected(int index, String error) {
+        return new BookingBatchResult(index, null, null, error);
+    }
+}
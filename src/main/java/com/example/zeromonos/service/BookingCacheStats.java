@@ -0,0 +1,13 @@
+package com.example.zeromonos.service;
+
+public record BookingCacheStats(
+        int size,
+        int maxSize,
+        long ttlSeconds,
+        long hits,
+        long misses,
+        double hitRatio,
+        long evictions,
+        long expirations
+) {
+}
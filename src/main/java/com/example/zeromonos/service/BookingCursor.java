@@ -0,0 +1,39 @@
+package com.example.zeromonos.service;
+
+import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingView;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Posição opaca na listagem paginada: o último (requestedDate, id) devolvido.
+ */
+public record BookingCursor(LocalDate requestedDate, UUID id) {
+
+    public static BookingCursor of(Booking booking) {
+        return new BookingCursor(booking.getRequestedDate(), booking.getId());
+    }
+
+    public static BookingCursor of(BookingView view) {
+        return new BookingCursor(view.requestedDate(), view.id());
+    }
+
+    public String encode() {
+        String raw = requestedDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookingCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new BookingCursor(LocalDate.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+    }
+}
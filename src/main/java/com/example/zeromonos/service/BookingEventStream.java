@@ -0,0 +1,184 @@
+package com.example.zeromonos.service;
+
+import com.example.zeromonos.data.BookingChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Difusão das alterações de bookings (criações, transições, remoções) para quem as subscreve,
+ * como o painel de staff. O filtro por município é normalizado pelo catálogo ao subscrever. Cada {@link BookingChangedEvent} é posto, depois do commit, na fila
+ * limitada de cada subscritor; o envio é feito por threads próprias, por isso um cliente lento
+ * nunca atrasa quem grava. Um subscritor cuja fila encha é desligado e volta a carregar a lista.
+ * Com threads virtuais ativas (spring.threads.virtual.enabled, Java 21+) cada entrega corre numa
+ * thread virtual própria, e um cliente lento deixa de ocupar uma das delivery-threads.
+ */
+@Component
+public class BookingEventStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingEventStream.class);
+
+    private final int queueCapacity;
+    private final Executor delivery;
+    private final MunicipioService municipioService;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public BookingEventStream(@Value("${bookings.events.queue-capacity:256}") int queueCapacity,
+                              @Value("${bookings.events.delivery-threads:4}") int deliveryThreads,
+                              Environment environment, MunicipioService municipioService) {
+        this(queueCapacity, deliveryThreads, Threading.VIRTUAL.isActive(environment), municipioService);
+    }
+
+    public BookingEventStream(int queueCapacity, int deliveryThreads, boolean virtualThreads) {
+        this(queueCapacity, deliveryThreads, virtualThreads, null);
+    }
+
+    public BookingEventStream(int queueCapacity, int deliveryThreads, boolean virtualThreads,
+                              MunicipioService municipioService) {
+        if (queueCapacity < 1 || deliveryThreads < 1) {
+            throw new IllegalArgumentException("bookings.events.queue-capacity e delivery-threads devem ser positivos");
+        }
+        this.queueCapacity = queueCapacity;
+        this.municipioService = municipioService;
+        if (virtualThreads) {
+            this.delivery = new VirtualThreadTaskExecutor("booking-events-");
+        } else {
+            AtomicInteger threads = new AtomicInteger();
+            this.delivery = Executors.newFixedThreadPool(deliveryThreads, task -> {
+                Thread thread = new Thread(task, "booking-events-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // Município vazio ou nulo recebe as alterações de todos os municípios; "evora" filtra por "Évora"
+    public Subscription subscribe(String municipality, Subscriber subscriber) {
+        String filter = municipality == null || municipality.isBlank() ? null : canonical(municipality.trim());
+        Subscription subscription = new Subscription(filter, subscriber);
+        subscriptions.add(subscription);
+        logger.info("Novo subscritor de eventos (município={}), total={}", filter, subscriptions.size());
+        return subscription;
+    }
+
+    private String canonical(String municipality) {
+        return municipioService == null ? municipality
+                : municipioService.findCanonicalName(municipality).orElse(municipality);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void publish(BookingChangedEvent event) {
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    public int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        List.copyOf(subscriptions).forEach(Subscription::close);
+        if (delivery instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Destino dos eventos de um subscritor (por exemplo, uma ligação SSE).
+     */
+    public interface Subscriber {
+
+        void send(BookingChangedEvent event) throws Exception;
+
+        void close();
+    }
+
+    public final class Subscription {
+
+        private final String municipality;
+        private final Subscriber subscriber;
+        private final BlockingQueue<BookingChangedEvent> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscription(String municipality, Subscriber subscriber) {
+            this.municipality = municipality;
+            this.subscriber = subscriber;
+        }
+
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                subscriptions.remove(this);
+                queue.clear();
+                subscriber.close();
+            }
+        }
+
+        public boolean isClosed() {
+            return closed.get();
+        }
+
+        // Nunca bloqueia: com a fila cheia o subscritor é desligado
+        private void offer(BookingChangedEvent event) {
+            if (closed.get() || (municipality != null && !municipality.equalsIgnoreCase(event.municipality()))) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                logger.warn("Subscritor de eventos (município={}) não acompanha o ritmo; ligação fechada", municipality);
+                close();
+                return;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    delivery.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    close();
+                }
+            }
+        }
+
+        // No máximo uma entrega em curso por subscritor, para manter a ordem dos eventos
+        private void drain() {
+            BookingChangedEvent event;
+            while (!closed.get() && (event = queue.poll()) != null) {
+                try {
+                    subscriber.send(event);
+                } catch (Exception e) {
+                    logger.debug("Falha ao enviar evento; subscritor removido", e);
+                    close();
+                    return;
+                }
+            }
+            scheduled.set(false);
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.zeromonos.service;
+
+import com.example.zeromonos.data.BookingRepository;
+import com.example.zeromonos.data.BookingView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exporta todos os bookings como NDJSON (um objeto JSON por linha), lidos por cursor.
+ * As linhas são projeções {@link BookingView}: nada fica no contexto de persistência,
+ * pelo que a memória usada não cresce com o tamanho da tabela.
+ */
+@Service
+public class BookingExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingExportService.class);
+
+    private static final int FLUSH_EVERY = 500;
+    private static final byte NEWLINE = '\n';
+
+    private final BookingRepository repository;
+    private final ObjectWriter writer;
+
+    public BookingExportService(BookingRepository repository, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.writer = objectMapper.writerFor(BookingView.class);
+    }
+
+    @Transactional(readOnly = true)
+    public long writeNdjson(OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<BookingView> rows = repository.streamAllForExport()) {
+            Iterator<BookingView> it = rows.iterator();
+            while (it.hasNext()) {
+                out.write(writer.writeValueAsBytes(it.next()));
+                out.write(NEWLINE);
+
+                if (++count % FLUSH_EVERY == 0) {
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+        logger.info("Export concluído: {} bookings", count);
+        return count;
+    }
+}
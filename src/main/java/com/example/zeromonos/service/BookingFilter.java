@@ -0,0 +1,9 @@
+package com.example.zeromonos.service;
+
+import com.example.zeromonos.data.BookingState;
+
+import java.time.LocalDate;
+
+// Filtros opcionais da listagem; campos a null não filtram
+public record BookingFilter(String municipality, BookingState status, LocalDate from, LocalDate to) {
+}
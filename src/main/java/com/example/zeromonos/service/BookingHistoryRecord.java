@@ -0,0 +1,23 @@
+package com.example.zeromonos.service;
+
+import com.example.zeromonos.data.BookingState;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Uma linha de histórico pendente, tal como fica escrita no journal
+record BookingHistoryRecord(UUID bookingId, BookingState status, LocalDateTime timestamp) {
+
+    String toLine() {
+        return bookingId + ";" + status + ";" + timestamp;
+    }
+
+    static BookingHistoryRecord parse(String line) {
+        String[] parts = line.split(";");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Linha de journal inválida: " + line);
+        }
+        return new BookingHistoryRecord(UUID.fromString(parts[0]), BookingState.valueOf(parts[1]),
+                LocalDateTime.parse(parts[2]));
+    }
+}
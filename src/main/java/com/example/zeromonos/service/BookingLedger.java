@@ -0,0 +1,325 @@
+package com.example.zeromonos.service;
+
+import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingChange;
+import com.example.zeromonos.data.BookingChangedEvent;
+import com.example.zeromonos.data.BookingRepository;
+import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.data.ChangeSequence;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ocupação em memória usada pelas regras de admissão do {@link BookingService}.
+ * É reconstruída a partir da base de dados no arranque e atualizada, depois do commit,
+ * por cada {@link BookingChangedEvent}. Cada booking é guardado pelo token, para que
+ * uma transição só ajuste os contadores pela diferença face ao estado anterior.
+ * Por dia guarda também uma máscara dos horários ocupados ({@link TimeSlots}), que serve
+ * a disponibilidade sem percorrer os contadores, e por município a contagem por estado,
+ * que com a contagem por dia serve as estatísticas.
+ * Com bookings.storage.ledger-snapshot definido, os bookings são gravados nesse ficheiro ao desligar,
+ * com a marca de água da {@link ChangeSequence}; no arranque seguinte só se relêem, pelo índice
+ * de change_seq, os bookings alterados depois dela, em vez da tabela inteira.
+ */
+@Component
+public class BookingLedger implements AdmissionCounts {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingLedger.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x5A4D4C47;    // "ZMLG"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int REPLAY_PAGE = 1_000;
+    private static final UUID FIRST_ID = new UUID(0, 0);
+
+    private final BookingRepository repository;
+    private final ChangeSequence changeSequence;
+    private final Path snapshotFile;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<DayKey, Integer> dayCounts = new ConcurrentHashMap<>();
+    private final Map<SlotKey, Integer> slotCounts = new ConcurrentHashMap<>();
+    private final Map<LocalDate, Integer> slotMasks = new ConcurrentHashMap<>();
+    private final Map<StateKey, Integer> stateCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    public BookingLedger(BookingRepository repository, ChangeSequence changeSequence,
+                         @Value("${bookings.storage.ledger-snapshot:}") String snapshotFile) {
+        this.repository = repository;
+        this.changeSequence = changeSequence;
+        this.snapshotFile = snapshotFile.isBlank() ? null : Path.of(snapshotFile);
+    }
+
+    // Arranque: fotografia anterior mais as alterações entretanto feitas ou, sem ela, a tabela inteira
+    @PostConstruct
+    public void start() {
+        if (snapshotFile == null || !Files.isReadable(snapshotFile) || !restore()) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        clear();
+
+        List<Booking> bookings = repository.findAll();
+        bookings.forEach(b -> apply(BookingChangedEvent.saved(b)));
+        logger.info("Ocupação reconstruída a partir de {} bookings", bookings.size());
+    }
+
+    // Ao desligar; a marca de água é lida antes de copiar os bookings, por isso uma alteração
+    // concorrente fica, no máximo, repetida no arranque seguinte (aplicar é idempotente)
+    @PreDestroy
+    public void saveSnapshot() {
+        if (snapshotFile == null) {
+            return;
+        }
+        long watermark = changeSequence.watermark();
+        Map<String, Entry> copy = Map.copyOf(entries);
+        try {
+            Path parent = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, "ledger", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(watermark);
+                out.writeInt(copy.size());
+                for (Map.Entry<String, Entry> e : copy.entrySet()) {
+                    Entry entry = e.getValue();
+                    out.writeUTF(e.getKey());
+                    writeNullable(out, entry.municipality());
+                    writeNullable(out, entry.date() == null ? null : entry.date().toString());
+                    writeNullable(out, entry.timeSlot());
+                    writeNullable(out, entry.status() == null ? null : entry.status().name());
+                }
+            }
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Fotografia do ledger gravada em {} ({} bookings, alteração {})",
+                    snapshotFile, copy.size(), watermark);
+        } catch (IOException e) {
+            logger.warn("Não foi possível gravar a fotografia do ledger em {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void apply(BookingChangedEvent event) {
+        Entry next = event.removed() ? null : Entry.of(event);
+        entries.compute(event.token(), (token, previous) -> {
+            if (previous != null) {
+                count(previous, -1);
+            }
+            if (next != null) {
+                count(next, 1);
+            }
+            return next;
+        });
+    }
+
+    @Override
+    public long countForDay(String municipality, LocalDate date) {
+        return dayCounts.getOrDefault(new DayKey(municipality, date), 0);
+    }
+
+    @Override
+    public boolean isSlotTaken(LocalDate date, String timeSlot) {
+        return slotCounts.getOrDefault(new SlotKey(date, timeSlot), 0) > 0;
+    }
+
+    @Override
+    public long countActive() {
+        return activeCount.get();
+    }
+
+    // Bits dos horários do catálogo com um booking não cancelado nesse dia
+    public int takenSlots(LocalDate date) {
+        return slotMasks.getOrDefault(date, 0);
+    }
+
+    // Fotografia dos contadores, opcionalmente só de um município; não percorre os bookings
+    public BookingStats stats(String municipality) {
+        Map<String, Map<BookingState, Long>> byStatus = new TreeMap<>();
+        Map<String, Map<LocalDate, Long>> byDay = new TreeMap<>();
+        stateCounts.forEach((key, count) -> {
+            if (matches(municipality, key.municipality())) {
+                byStatus.computeIfAbsent(key.municipality(), m -> new EnumMap<>(BookingState.class))
+                        .put(key.status(), (long) count);
+            }
+        });
+        dayCounts.forEach((key, count) -> {
+            if (matches(municipality, key.municipality())) {
+                byDay.computeIfAbsent(key.municipality(), m -> new TreeMap<>()).put(key.date(), (long) count);
+            }
+        });
+
+        Map<BookingState, Long> totals = new EnumMap<>(BookingState.class);
+        Map<String, MunicipalityStats> municipalities = new TreeMap<>();
+        byStatus.forEach((name, counts) -> {
+            counts.forEach((status, count) -> totals.merge(status, count, Long::sum));
+            municipalities.put(name, new MunicipalityStats(counts, byDay.getOrDefault(name, Map.of())));
+        });
+        long total = totals.values().stream().mapToLong(Long::longValue).sum();
+        return new BookingStats(total, totals, municipalities);
+    }
+
+    // Fotografia mais as alterações posteriores. Recusada (e a tabela relida por inteiro) se for
+    // ilegível, mais recente do que a base de dados (por exemplo, depois de repor uma cópia de
+    // segurança) ou se no fim o número de bookings não bater certo (bookings apagados entretanto).
+    private boolean restore() {
+        long seq;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                logger.warn("Fotografia do ledger em {} num formato desconhecido", snapshotFile);
+                return false;
+            }
+            seq = in.readLong();
+            if (seq > changeSequence.watermark()) {
+                logger.warn("Fotografia do ledger (alteração {}) mais recente do que a base de dados ({})",
+                        seq, changeSequence.watermark());
+                return false;
+            }
+            clear();
+            for (int i = in.readInt(); i > 0; i--) {
+                String token = in.readUTF();
+                String municipality = readNullable(in);
+                String date = readNullable(in);
+                String timeSlot = readNullable(in);
+                String status = readNullable(in);
+                Entry entry = new Entry(municipality, date == null ? null : LocalDate.parse(date), timeSlot,
+                        status == null ? null : BookingState.valueOf(status));
+                entries.put(token, entry);
+                count(entry, 1);
+            }
+        } catch (IOException | IllegalArgumentException | DateTimeParseException e) {
+            logger.warn("Fotografia do ledger ilegível em {}: {}", snapshotFile, e.toString());
+            return false;
+        }
+
+        int replayed = replayChangesAfter(seq);
+        long stored = repository.count();
+        if (entries.size() != stored) {
+            logger.warn("Fotografia do ledger com {} bookings, base de dados com {}; a reconstruir",
+                    entries.size(), stored);
+            return false;
+        }
+        logger.info("Ocupação reposta de {} ({} bookings, {} alterados desde a alteração {})",
+                snapshotFile, entries.size(), replayed, seq);
+        return true;
+    }
+
+    // Alterações com número acima de seq, por páginas e pelo índice (change_seq, id)
+    private int replayChangesAfter(long seq) {
+        int replayed = 0;
+        long lastSeq = seq;
+        UUID lastId = FIRST_ID;
+        List<BookingChange> page;
+        do {
+            page = repository.findChangesAfter(lastSeq, lastId, Long.MAX_VALUE, Limit.of(REPLAY_PAGE));
+            for (BookingChange change : page) {
+                apply(BookingChangedEvent.saved(change.view(), change.changeSeq()));
+            }
+            if (!page.isEmpty()) {
+                BookingChange last = page.get(page.size() - 1);
+                lastSeq = last.changeSeq();
+                lastId = last.view().id();
+                replayed += page.size();
+            }
+        } while (page.size() == REPLAY_PAGE);
+        return replayed;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private void clear() {
+        entries.clear();
+        dayCounts.clear();
+        slotCounts.clear();
+        slotMasks.clear();
+        stateCounts.clear();
+        activeCount.set(0);
+    }
+
+    private static boolean matches(String filter, String municipality) {
+        return filter == null || filter.isBlank() || filter.trim().equalsIgnoreCase(municipality);
+    }
+
+    private void count(Entry entry, int delta) {
+        adjust(dayCounts, new DayKey(entry.municipality(), entry.date()), delta);
+        adjust(stateCounts, new StateKey(entry.municipality(), entry.status()), delta);
+        if (entry.status() != BookingState.CANCELADO) {
+            adjustSlot(entry.date(), entry.timeSlot(), delta);
+        }
+        if (isActive(entry.status())) {
+            activeCount.addAndGet(delta);
+        }
+    }
+
+    private static <K> void adjust(Map<K, Integer> counts, K key, int delta) {
+        counts.compute(key, (k, current) -> {
+            int value = (current == null ? 0 : current) + delta;
+            return value <= 0 ? null : value;
+        });
+    }
+
+    // O bit muda dentro do compute do contador: só quem tem a chave do horário mexe no seu bit
+    private void adjustSlot(LocalDate date, String timeSlot, int delta) {
+        int bit = TimeSlots.bit(timeSlot);
+        slotCounts.compute(new SlotKey(date, timeSlot), (k, current) -> {
+            int value = (current == null ? 0 : current) + delta;
+            if (bit != 0) {
+                slotMasks.compute(date, (d, mask) -> {
+                    int next = value > 0 ? (mask == null ? 0 : mask) | bit : (mask == null ? 0 : mask) & ~bit;
+                    return next == 0 ? null : next;
+                });
+            }
+            return value <= 0 ? null : value;
+        });
+    }
+
+    private static boolean isActive(BookingState status) {
+        return status != BookingState.CANCELADO && status != BookingState.CONCLUIDO;
+    }
+
+    private record Entry(String municipality, LocalDate date, String timeSlot, BookingState status) {
+        static Entry of(BookingChangedEvent event) {
+            return new Entry(event.municipality(), event.requestedDate(), event.timeSlot(), event.status());
+        }
+    }
+
+    private record DayKey(String municipality, LocalDate date) {}
+
+    private record SlotKey(LocalDate date, String timeSlot) {}
+
+    private record StateKey(String municipality, BookingState status) {}
+}
@@ -0,0 +1,7 @@
+package com.example.zeromonos.service;
+
+import java.util.List;
+
+// Uma página da listagem; nextCursor é null na última página
+public record BookingPage<T>(List<T> items, String nextCursor) {
+}
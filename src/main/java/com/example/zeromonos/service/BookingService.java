@@ -1,107 +1,376 @@
 package com.example.zeromonos.service;
 
 import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingChange;
 import com.example.zeromonos.data.BookingRepository;
+import com.example.zeromonos.data.BookingSpecifications;
 import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.data.BookingTokenGenerator;
+import com.example.zeromonos.data.BookingTokens;
+import com.example.zeromonos.data.BookingView;
+import com.example.zeromonos.data.ChangeSequence;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class BookingService {
 
     private final BookingRepository repository;
     private final MunicipioService municipioService;
+    private final AdmissionCounts admissionCounts;
+    private final BookingLedger ledger;
+    private final AdmissionLocks admissionLocks;
+    private final BookingTokenCache tokenCache;
+    private final ChangeSequence changeSequence;
+    private final BookingTokenGenerator tokenGenerator;
+    private final int maxActiveBookings;          // Limite de reservas ativas por cidadão
 
-    private static final int LIMITE_DIARIO = 5;       // Limite de bookings por dia
-    private static final int MAX_ACTIVE_BOOKINGS = 3; // Limite de reservas ativas por cidadão
+    // Reservas ativas admitidas mas ainda não gravadas; protegidas por activeLock. É um lock e não um
+    // monitor porque a contagem pode ir à base de dados, e com threads virtuais um synchronized prende a carrier
+    private final ReentrantLock activeLock = new ReentrantLock();
+    private final AtomicInteger pendingActive = new AtomicInteger();
 
-    public BookingService(BookingRepository repository, MunicipioService municipioService) {
+    static final int LIMITE_DIARIO = 5;               // Limite de bookings por dia
+    public static final int MAX_PAGE_SIZE = 200;      // Máximo de bookings por página
+    public static final int MAX_BATCH_SIZE = 1000;    // Máximo de bookings (ou tokens) por lote
+    static final Sort KEYSET_ORDER = Sort.by("requestedDate", "id");
+
+    public BookingService(BookingRepository repository, MunicipioService municipioService, AdmissionCounts admissionCounts,
+                          BookingLedger ledger, AdmissionLocks admissionLocks, BookingTokenCache tokenCache, ChangeSequence changeSequence,
+                          BookingTokenGenerator tokenGenerator, @Value("${bookings.admission.max-active:3}") int maxActiveBookings) {
         this.repository = repository;
         this.municipioService = municipioService;
+        this.admissionCounts = admissionCounts;
+        this.ledger = ledger;
+        this.admissionLocks = admissionLocks;
+        this.tokenCache = tokenCache;
+        this.changeSequence = changeSequence;
+        this.tokenGenerator = tokenGenerator;
+        this.maxActiveBookings = maxActiveBookings;
     }
 
     // Cria booking com validações
     public Booking createBooking(Booking booking) {
+        String municipality = validate(booking);
 
-        if (booking.getDescription() == null || booking.getDescription().trim().length() < 3) {
-            throw new IllegalArgumentException("Descrição inválida — demasiado curta");
+        // Admissão atómica por (município, dia) e (dia, horário). O save fica dentro do lock e
+        // faz commit antes de o libertar, por isso este método não pode ser @Transactional.
+        AdmissionLocks.Held held = admissionLocks.acquire(
+                List.of(municipality, booking.getRequestedDate()),
+                List.of(booking.getRequestedDate(), booking.getTimeSlot()));
+        try (held) {
+
+            // Limite diário por município
+            if (admissionCounts.countForDay(municipality, booking.getRequestedDate()) >= LIMITE_DIARIO) {
+                throw new IllegalArgumentException("Limite de pedidos atingido para este dia");
+            }
+
+            // Conflito de horário
+            if (admissionCounts.isSlotTaken(booking.getRequestedDate(), booking.getTimeSlot())) {
+                throw new IllegalArgumentException("Não é possível reservar dois serviços no mesmo horário.");
+            }
+
+            // Limite de reservas ativas por cidadão
+            reserveActiveBooking();
+            try {
+                booking.initializeRequest(tokenGenerator);
+                return repository.save(booking);
+            } finally {
+                pendingActive.decrementAndGet();
+            }
         }
+    }
 
-        // Validação interna (do próprio booking)
-        booking.validateSelf();
+    // O limite de ativas é global: a verificação e a reserva são atómicas, o save não
+    private void reserveActiveBooking() {
+        activeLock.lock();
+        try {
+            // Lê as pendentes antes da contagem: uma reserva que termine entretanto já está na contagem
+            int pending = pendingActive.get();
+            if (admissionCounts.countActive() + pending >= maxActiveBookings) {
+                throw new IllegalArgumentException("O cidadão já atingiu o limite de reservas ativas.");
+            }
+            pendingActive.incrementAndGet();
+        } finally {
+            activeLock.unlock();
+        }
+    }
 
-        // Valida município
-        if (!municipioService.isValidMunicipality(booking.getMunicipality())) {
-            throw new IllegalArgumentException("Município inválido: " + booking.getMunicipality());
+    // Criação em lote: o lote inteiro é admitido numa só passagem, com os locks de todas as chaves,
+    // e os admitidos são gravados numa só transação (inserts em JDBC batch). Resultado por item.
+    public List<BookingBatchResult> createBookings(List<Booking> bookings) {
+        if (bookings == null || bookings.isEmpty() || bookings.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("O lote deve ter entre 1 e " + MAX_BATCH_SIZE + " bookings");
         }
 
-        // Limite diário por município
-        long count = repository.findByMunicipality(booking.getMunicipality()).stream()
-                .filter(b -> b.getRequestedDate().equals(booking.getRequestedDate()))
-                .count();
-        if (count >= LIMITE_DIARIO) {
-            throw new IllegalArgumentException("Limite de pedidos atingido para este dia");
+        BookingBatchResult[] results = new BookingBatchResult[bookings.size()];
+        List<Integer> candidates = new ArrayList<>();
+        List<Object> keys = new ArrayList<>();
+        for (int i = 0; i < bookings.size(); i++) {
+            Booking booking = bookings.get(i);
+            // Um null no array JSON chega como item em falta, e não deve derrubar o lote inteiro
+            if (booking == null) {
+                results[i] = BookingBatchResult.rejected(i, "Pedido em falta no lote");
+                continue;
+            }
+            try {
+                String municipality = validate(booking);
+                keys.add(List.of(municipality, booking.getRequestedDate()));
+                keys.add(List.of(booking.getRequestedDate(), booking.getTimeSlot()));
+                candidates.add(i);
+            } catch (IllegalArgumentException e) {
+                results[i] = BookingBatchResult.rejected(i, e.getMessage());
+            }
         }
 
-        // Conflito de horário
-        boolean hasConflict = repository.findAll().stream()
-                .anyMatch(b -> b.getRequestedDate().equals(booking.getRequestedDate())
-                        && b.getTimeSlot().equals(booking.getTimeSlot())
-                        && b.getStatus() != BookingState.CANCELADO);
-        if (hasConflict) {
-            throw new IllegalArgumentException("Não é possível reservar dois serviços no mesmo horário.");
+        List<Integer> admitted = new ArrayList<>();
+        AdmissionLocks.Held held = admissionLocks.acquire(keys.toArray());
+        try (held) {
+            // Ocupação acrescentada pelos itens já admitidos neste lote
+            Map<List<Object>, Integer> dayAdded = new HashMap<>();
+            Set<List<Object>> slotsAdded = new HashSet<>();
+
+            activeLock.lock();
+            try {
+                int pending = pendingActive.get();
+                long available = maxActiveBookings - admissionCounts.countActive() - pending;
+                for (int i : candidates) {
+                    Booking booking = bookings.get(i);
+                    List<Object> day = List.of(booking.getMunicipality(), booking.getRequestedDate());
+                    List<Object> slot = List.of(booking.getRequestedDate(), booking.getTimeSlot());
+
+                    if (admissionCounts.countForDay(booking.getMunicipality(), booking.getRequestedDate())
+                            + dayAdded.getOrDefault(day, 0) >= LIMITE_DIARIO) {
+                        results[i] = BookingBatchResult.rejected(i, "Limite de pedidos atingido para este dia");
+                    } else if (slotsAdded.contains(slot)
+                            || admissionCounts.isSlotTaken(booking.getRequestedDate(), booking.getTimeSlot())) {
+                        results[i] = BookingBatchResult.rejected(i, "Não é possível reservar dois serviços no mesmo horário.");
+                    } else if (admitted.size() >= available) {
+                        results[i] = BookingBatchResult.rejected(i, "O cidadão já atingiu o limite de reservas ativas.");
+                    } else {
+                        dayAdded.merge(day, 1, Integer::sum);
+                        slotsAdded.add(slot);
+                        admitted.add(i);
+                    }
+                }
+                pendingActive.addAndGet(admitted.size());
+            } finally {
+                activeLock.unlock();
+            }
+
+            try {
+                List<Booking> toSave = new ArrayList<>(admitted.size());
+                for (int i : admitted) {
+                    Booking booking = bookings.get(i);
+                    booking.initializeRequest(tokenGenerator);
+                    toSave.add(booking);
+                }
+                repository.saveAll(toSave);
+            } finally {
+                pendingActive.addAndGet(-admitted.size());
+            }
         }
 
-        // Limite de reservas ativas por cidadão
-        long activeCount = repository.findAll().stream()
-                .filter(b -> b.getStatus() != BookingState.CANCELADO && b.getStatus() != BookingState.CONCLUIDO)
-                .count();
+        for (int i : admitted) {
+            results[i] = BookingBatchResult.created(i, bookings.get(i));
+        }
+        return List.of(results);
+    }
 
-        if (activeCount >= MAX_ACTIVE_BOOKINGS) {
-            throw new IllegalArgumentException("O cidadão já atingiu o limite de reservas ativas.");
+    // Validações que não dependem da ocupação; devolve o município canónico
+    private String validate(Booking booking) {
+        if (booking.getDescription() == null || booking.getDescription().trim().length() < 3) {
+            throw new IllegalArgumentException("Descrição inválida — demasiado curta");
         }
 
-        return repository.save(booking);
+        // Validação interna (do próprio booking)
+        booking.validateSelf();
+
+        // Valida município e guarda-o com o nome canónico
+        String municipality = municipioService.findCanonicalName(booking.getMunicipality())
+                .orElseThrow(() -> new IllegalArgumentException("Município inválido: " + booking.getMunicipality()));
+        booking.setMunicipality(municipality);
+        return municipality;
     }
 
     // Booking por token
     public Optional<Booking> getBookingByToken(String token) {
-        return repository.findByToken(token);
+        return BookingTokens.parse(token).flatMap(repository::findByToken);
+    }
+
+    // Projeção do booking por token, para leitura; servida pela cache sempre que possível
+    public Optional<BookingView> getBookingViewByToken(String token) {
+        Optional<UUID> value = BookingTokens.parse(token);
+        if (value.isEmpty()) {
+            return Optional.empty();
+        }
+        // A cache usa sempre a forma base62, mesmo quando o pedido traz um token antigo
+        Optional<BookingView> cached = tokenCache.get(BookingTokens.format(value.get()));
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<BookingChange> change = repository.findChangeByToken(value.get());
+        change.ifPresent(tokenCache::load);
+        return change.map(BookingChange::view);
     }
 
-    // Booking por município
-    public List<Booking> getBookingsByMunicipality(String municipality) {
-        return repository.findByMunicipality(municipality);
+    // Contadores da cache de consultas por token
+    public BookingCacheStats getTokenCacheStats() {
+        return tokenCache.getStats();
     }
 
-    // Todos os bookings
-    public List<Booking> getAllBookings() {
-        return repository.findAll();
+    // Contagens por estado e por dia, do ledger; o município é normalizado como nas listagens
+    public BookingStats getStats(String municipality) {
+        String canonical = municipality == null || municipality.isBlank() ? null
+                : municipioService.findCanonicalName(municipality).orElse(municipality);
+        return ledger.stats(canonical);
     }
 
-    // Atualizar estado com transições válidas
-    public Booking updateBookingStatus(String token, BookingState novoEstado) {
-        Booking booking = repository.findByToken(token)
+    // Listagem paginada por keyset (requestedDate, id), com filtros opcionais; só projeções
+    public BookingPage<BookingView> listBookings(BookingFilter filter, String cursor, int size) {
+        checkPageSize(size);
+        // Pede-se mais um para saber se existe página seguinte sem fazer count
+        List<BookingView> rows = repository.findViews(toSpecification(filter, cursor), KEYSET_ORDER, size + 1);
+        List<BookingView> page = rows.size() <= size ? rows : rows.subList(0, size);
+        String nextCursor = rows.size() > size ? BookingCursor.of(page.get(size - 1)).encode() : null;
+        return new BookingPage<>(page, nextCursor);
+    }
+
+    // Mesma listagem, com as entidades completas e o respetivo histórico
+    @Transactional(readOnly = true)
+    public BookingPage<Booking> listBookingsWithHistory(BookingFilter filter, String cursor, int size) {
+        checkPageSize(size);
+        List<Booking> rows = repository.findBy(toSpecification(filter, cursor),
+                q -> q.sortBy(KEYSET_ORDER).limit(size + 1).all());
+        List<Booking> page = rows.size() <= size ? rows : rows.subList(0, size);
+
+        // Histórico da página inteira numa única query, em vez de uma por booking
+        if (!page.isEmpty()) {
+            repository.fetchHistory(page);
+        }
+
+        String nextCursor = rows.size() > size ? BookingCursor.of(page.get(size - 1)).encode() : null;
+        return new BookingPage<>(page, nextCursor);
+    }
+
+    // Delta sync: bookings criados ou transitados depois do cursor, pela ordem das alterações.
+    // Só chega até à marca de água, por isso uma transação mais lenta nunca fica para trás do cursor.
+    // O cursor seguinte vem sempre preenchido: sem alterações novas, fica igual ao recebido.
+    public BookingPage<BookingView> listChanges(String since, int size) {
+        checkPageSize(size);
+        ChangeCursor position = ChangeCursor.decode(since);
+        long watermark = changeSequence.watermark();
+        List<BookingChange> changes = repository.findChangesAfter(position.changeSeq(), position.id(),
+                watermark, Limit.of(size));
+        ChangeCursor next = changes.isEmpty() ? position : ChangeCursor.of(changes.get(changes.size() - 1));
+        return new BookingPage<>(changes.stream().map(BookingChange::view).toList(), next.encode());
+    }
+
+    static void checkPageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Tamanho de página inválido: deve estar entre 1 e " + MAX_PAGE_SIZE);
+        }
+    }
+
+    private Specification<Booking> toSpecification(BookingFilter filter, String cursor) {
+        Specification<Booking> spec = Specification.unrestricted();
+        if (filter.municipality() != null) {
+            String canonical = municipioService.findCanonicalName(filter.municipality()).orElse(filter.municipality());
+            spec = spec.and(BookingSpecifications.municipality(canonical));
+        }
+        if (filter.status() != null) {
+            spec = spec.and(BookingSpecifications.status(filter.status()));
+        }
+        if (filter.from() != null) {
+            spec = spec.and(BookingSpecifications.requestedFrom(filter.from()));
+        }
+        if (filter.to() != null) {
+            spec = spec.and(BookingSpecifications.requestedTo(filter.to()));
+        }
+        if (cursor != null) {
+            BookingCursor position = BookingCursor.decode(cursor);
+            spec = spec.and(BookingSpecifications.after(position.requestedDate(), position.id()));
+        }
+        return spec;
+    }
+
+    // Atualizar estado com transições válidas, num UPDATE condicional: sem leitura prévia,
+    // duas ações concorrentes sobre o mesmo booking não se sobrepõem
+    @Transactional
+    public BookingView updateBookingStatus(String token, BookingState novoEstado) {
+        Optional<UUID> value = BookingTokens.parse(token);
+        Optional<BookingView> updated = value.flatMap(v -> repository.transition(v, novoEstado));
+        if (updated.isPresent()) {
+            return updated.get();
+        }
+
+        // Nenhuma linha alterada: só agora se lê o booking, para explicar porquê
+        BookingView current = value.flatMap(repository::findViewByToken)
                 .orElseThrow(() -> new IllegalArgumentException("Reserva não encontrada para o token fornecido."));
+        throw new IllegalArgumentException("Transição inválida de " + current.status() + " para " + novoEstado);
+    }
 
-        BookingState estadoAtual = booking.getStatus();
-        boolean validTransition = false;
+    // Transição em bloco, set-wise: um select das projeções, um UPDATE condicional para todos os
+    // elegíveis e o histórico em JDBC batch. Resultado por token, pela ordem recebida: aplicada, não
+    // encontrada, inválida ou em conflito (mudou de estado depois de lida). As aplicadas fazem commit
+    // mesmo que outras falhem.
+    @Transactional
+    public List<BookingTransitionResult> updateBookingStatuses(List<String> tokens, BookingState novoEstado) {
+        if (tokens == null || tokens.isEmpty() || tokens.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("O lote deve ter entre 1 e " + MAX_BATCH_SIZE + " tokens");
+        }
 
-        if (estadoAtual == BookingState.RECEBIDO) {
-            validTransition = (novoEstado == BookingState.EM_PROG || novoEstado == BookingState.CANCELADO);
-        } else if (estadoAtual == BookingState.EM_PROG) {
-            validTransition = (novoEstado == BookingState.CONCLUIDO || novoEstado == BookingState.CANCELADO);
-        } else if (estadoAtual == BookingState.CONCLUIDO || estadoAtual == BookingState.CANCELADO) {
-            validTransition = false;
+        Map<String, UUID> parsed = new HashMap<>();
+        for (String token : tokens) {
+            BookingTokens.parse(token).ifPresent(value -> parsed.put(token, value));
+        }
+        Map<UUID, BookingView> current = new HashMap<>();
+        for (BookingView view : repository.findViewsByTokenIn(new HashSet<>(parsed.values()))) {
+            current.put(BookingTokens.parse(view.token()).orElseThrow(), view);
         }
 
-        if (!validTransition) {
-            throw new IllegalArgumentException("Transição inválida de " + estadoAtual + " para " + novoEstado);
+        // Cada booking transita uma vez, mesmo que o token apareça repetido ou em formatos diferentes
+        Set<UUID> eligible = new HashSet<>();
+        current.forEach((value, view) -> {
+            if (view.status().canTransitionTo(novoEstado)) {
+                eligible.add(value);
+            }
+        });
+        Map<UUID, BookingView> updated = new HashMap<>();
+        for (BookingView view : repository.transitionAll(eligible, novoEstado)) {
+            updated.put(BookingTokens.parse(view.token()).orElseThrow(), view);
         }
 
-        booking.addState(novoEstado);
-        return repository.save(booking);
+        List<BookingTransitionResult> results = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            UUID value = parsed.get(token);
+            BookingView view = value == null ? null : current.get(value);
+            if (view == null) {
+                results.add(BookingTransitionResult.rejected(token, "Reserva não encontrada para o token fornecido."));
+            } else if (updated.containsKey(value)) {
+                results.add(BookingTransitionResult.updated(updated.get(value)));
+            } else if (eligible.contains(value)) {
+                results.add(BookingTransitionResult.rejected(token, "A reserva foi alterada entretanto. Tente novamente."));
+            } else {
+                results.add(BookingTransitionResult.rejected(token,
+                        "Transição inválida de " + view.status() + " para " + novoEstado));
+            }
+        }
+        return results;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,9 @@
+package com.example.zeromonos.service;
+
+import com.example.zeromonos.data.BookingState;
+
+import java.util.Map;
+
+// Contagens para os dashboards: total, por estado e, por município, por estado e por dia
+public record BookingStats(long total, Map<BookingState, Long> byStatus, Map<String, MunicipalityStats> municipalities) {
+}
@@ -0,0 +1,205 @@
+package com.example.zeromonos.service;
+
+import com.example.zeromonos.data.BookingChange;
+import com.example.zeromonos.data.BookingChangedEvent;
+import com.example.zeromonos.data.BookingView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache das consultas por token, limitada em tamanho (LRU aproximado) e em tempo (TTL).
+ * Cada gravação de um booking substitui a entrada depois do commit, através do
+ * {@link BookingChangedEvent}, por isso a cache nunca serve um estado anterior ao da base de dados.
+ * As entradas são versionadas pelo changeSeq da linha: uma leitura da base de dados mais antiga do que
+ * a última gravação conhecida para o token é ignorada. Despejada ou removida, a entrada fica só com a
+ * versão até ao fim do TTL, para que uma leitura que começou antes dessa gravação não a reponha.
+ * As leituras não tomam nenhum lock: um acerto só marca o instante do último acesso.
+ */
+@Component
+public class BookingTokenCache {
+
+    private final int maxSize;
+    private final Duration ttl;
+    private final Clock clock;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // Entradas com booking; as restantes só guardam a versão
+    private final AtomicInteger live = new AtomicInteger();
+    // Lock e não monitor: com threads virtuais um synchronized prende a carrier; quem não o obtém
+    // segue em frente, porque outra thread já está a despejar
+    private final ReentrantLock evicting = new ReentrantLock();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    @Autowired
+    public BookingTokenCache(@Value("${bookings.token-cache.max-size:10000}") int maxSize,
+                             @Value("${bookings.token-cache.ttl:PT10M}") Duration ttl) {
+        this(maxSize, ttl, Clock.systemUTC());
+    }
+
+    public BookingTokenCache(int maxSize, Duration ttl, Clock clock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("bookings.token-cache.max-size deve ser positivo");
+        }
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    public Optional<BookingView> get(String token) {
+        Entry entry = entries.get(token);
+        if (entry != null && entry.view != null && entry.expiresAt.isBefore(clock.instant())) {
+            if (entries.remove(token, entry)) {
+                live.decrementAndGet();
+                expirations.incrementAndGet();
+            }
+            entry = null;
+        }
+        if (entry == null || entry.view == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        entry.lastAccess = System.nanoTime();
+        hits.incrementAndGet();
+        return Optional.of(entry.view);
+    }
+
+    // Resultado lido da base de dados; ignorado se a cache já conhece uma gravação posterior
+    public void load(BookingChange change) {
+        String token = change.view().token();
+        entries.compute(token, (key, current) -> current != null && !current.acceptsLoad(change.changeSeq())
+                ? current : counted(current, newEntry(change.view(), change.changeSeq())));
+        evictIfFull();
+    }
+
+    public void put(BookingView view, long changeSeq) {
+        entries.compute(view.token(), (key, current) -> current != null && current.version > changeSeq
+                ? current : counted(current, newEntry(view, changeSeq)));
+        evictIfFull();
+    }
+
+    // Booking removido: fica a versão, para que nenhuma leitura anterior à remoção o traga de volta
+    public void invalidate(String token, long changeSeq) {
+        entries.compute(token, (key, current) -> current != null && current.version > changeSeq
+                ? current : counted(current, new Entry(null, changeSeq, clock.instant().plus(ttl), true)));
+        evictIfFull();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void apply(BookingChangedEvent event) {
+        if (event.removed()) {
+            invalidate(event.token(), event.changeSeq());
+        } else {
+            put(event.toView(), event.changeSeq());
+        }
+    }
+
+    public BookingCacheStats getStats() {
+        long h = hits.get();
+        long m = misses.get();
+        double ratio = h + m == 0 ? 0.0 : (double) h / (h + m);
+        return new BookingCacheStats(live.get(), maxSize, ttl.toSeconds(), h, m, ratio,
+                evictions.get(), expirations.get());
+    }
+
+    private Entry newEntry(BookingView view, long version) {
+        return new Entry(view, version, clock.instant().plus(ttl), false);
+    }
+
+    // Chamado dentro do compute, que corre uma única vez por alteração: a contagem fica exata
+    private Entry counted(Entry current, Entry next) {
+        live.addAndGet((next.view != null ? 1 : 0) - (current != null && current.view != null ? 1 : 0));
+        return next;
+    }
+
+    // Acima do limite, despeja as entradas acedidas há mais tempo e mais uma folga de 10%,
+    // para que a ordenação não se repita a cada inserção; as versões órfãs também têm limite
+    private void evictIfFull() {
+        if ((live.get() <= maxSize && entries.size() <= 2 * maxSize) || !evicting.tryLock()) {
+            return;
+        }
+        try {
+            Instant now = clock.instant();
+            // O instante de acesso é copiado antes de ordenar, porque os acertos continuam a alterá-lo
+            List<Candidate> cached = new ArrayList<>();
+            List<Candidate> versions = new ArrayList<>();
+            entries.forEach((token, entry) -> {
+                if (entry.view != null) {
+                    cached.add(new Candidate(token, entry, entry.lastAccess));
+                } else if (entry.expiresAt.isBefore(now)) {
+                    entries.remove(token, entry);
+                } else {
+                    versions.add(new Candidate(token, entry, entry.expiresAt.toEpochMilli()));
+                }
+            });
+
+            int excess = live.get() - maxSize;
+            if (excess > 0) {
+                cached.sort(Comparator.comparingLong(Candidate::order));
+                for (Candidate candidate : cached.subList(0, Math.min(cached.size(), excess + maxSize / 10))) {
+                    Entry version = candidate.entry().evicted();
+                    if (entries.replace(candidate.token(), candidate.entry(), version)) {
+                        live.decrementAndGet();
+                        evictions.incrementAndGet();
+                        versions.add(new Candidate(candidate.token(), version, version.expiresAt.toEpochMilli()));
+                    }
+                }
+            }
+
+            // Sem espaço para todas, esquecem-se primeiro as versões que expiram mais cedo
+            if (versions.size() > maxSize) {
+                versions.sort(Comparator.comparingLong(Candidate::order));
+                for (Candidate candidate : versions.subList(0, versions.size() - maxSize)) {
+                    entries.remove(candidate.token(), candidate.entry());
+                }
+            }
+        } finally {
+            evicting.unlock();
+        }
+    }
+
+    private static final class Entry {
+
+        final BookingView view;     // null: só a versão (booking despejado ou removido)
+        final long version;
+        final Instant expiresAt;
+        final boolean removed;
+        volatile long lastAccess = System.nanoTime();
+
+        Entry(BookingView view, long version, Instant expiresAt, boolean removed) {
+            this.view = view;
+            this.version = version;
+            this.expiresAt = expiresAt;
+            this.removed = removed;
+        }
+
+        // Uma leitura com a mesma versão de uma entrada despejada traz os mesmos dados; depois de
+        // uma remoção, nem essa
+        boolean acceptsLoad(long loaded) {
+            return loaded > version || (loaded == version && view == null && !removed);
+        }
+
+        Entry evicted() {
+            return new Entry(null, version, expiresAt, false);
+        }
+    }
+
+    private record Candidate(String token, Entry entry, long order) {}
+}
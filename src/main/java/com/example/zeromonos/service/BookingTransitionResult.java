@@ -0,0 +1,16 @@
+package com.example.zeromonos.service;
+
+import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.data.BookingView;
+
+// Resultado de uma transição em bloco: novo estado se foi aplicada, motivo se foi rejeitada
+public record BookingTransitionResult(String token, BookingState status, String error) {
+
+    public static BookingTransitionResult updated(BookingView view) {
+        return new BookingTransitionResult(view.token(), view.status(), null);
+    }
+
+    public static BookingTransitionResult rejected(String token, String error) {
+        return new BookingTransitionResult(token, null, error);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.zeromonos.service;
+
+import com.example.zeromonos.data.BookingChange;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Posição opaca no delta sync: a última (changeSeq, id) entregue ao cliente.
+ */
+public record ChangeCursor(long changeSeq, UUID id) {
+
+    // Antes de qualquer alteração
+    public static final ChangeCursor START = new ChangeCursor(0, new UUID(0, 0));
+
+    public static ChangeCursor of(BookingChange change) {
+        return new ChangeCursor(change.changeSeq(), change.view().id());
+    }
+
+    public String encode() {
+        String raw = changeSeq + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ChangeCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new ChangeCursor(Long.parseLong(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+    }
+}
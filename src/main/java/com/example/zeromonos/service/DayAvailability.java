@@ -0,0 +1,8 @@
+package com.example.zeromonos.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Disponibilidade de um dia útil: pedidos que o município ainda aceita e horários livres
+public record DayAvailability(LocalDate date, int remaining, List<String> freeSlots) {
+}
@@ -0,0 +1,193 @@
+package com.example.zeromonos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Journal local do histórico em write-behind. As entradas são escritas em segmentos append-only
+ * e forçadas para disco antes do commit da transação que as produziu; um segmento é apagado
+ * quando está fechado e todas as suas entradas já foram gravadas na base de dados (ou descartadas).
+ */
+class HistoryJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoryJournal.class);
+    private static final String PREFIX = "history-";
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    // Lock e não monitor: é mantido durante o write/force, e com threads virtuais um synchronized prende a carrier
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Protegidos por lock
+    private Segment current;
+    private long nextSegment;
+    private final Set<Path> owned = new HashSet<>();
+
+    HistoryJournal(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível criar o diretório do journal: " + directory, e);
+        }
+    }
+
+    // Entradas deixadas por uma execução anterior (ainda por gravar, ou já gravadas sem o segmento ter sido apagado)
+    List<BookingHistoryRecord> readLeftovers() {
+        List<BookingHistoryRecord> records = new ArrayList<>();
+        for (Path segment : leftoverSegments()) {
+            try {
+                for (String line : Files.readAllLines(segment, StandardCharsets.UTF_8)) {
+                    if (!line.isBlank()) {
+                        records.add(BookingHistoryRecord.parse(line));
+                    }
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                // Uma última linha truncada por um crash a meio da escrita não chegou a ser confirmada
+                logger.warn("Segmento do journal ilegível, ignorado: {} ({})", segment, e.getMessage());
+            }
+        }
+        return records;
+    }
+
+    void deleteLeftovers() {
+        for (Path segment : leftoverSegments()) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Escreve e força para disco; devolve o segmento onde as entradas ficaram
+    Segment append(List<BookingHistoryRecord> records) {
+        StringBuilder lines = new StringBuilder();
+        for (BookingHistoryRecord record : records) {
+            lines.append(record.toLine()).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+
+        lock.lock();
+        try {
+            if (current == null) {
+                current = new Segment(directory.resolve(PREFIX + String.format("%019d", nextSegment++) + SUFFIX));
+                owned.add(current.path);
+            }
+            while (buffer.hasRemaining()) {
+                current.channel.write(buffer);
+            }
+            current.channel.force(false);
+            current.outstanding += records.size();
+            return current;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao escrever no journal do histórico", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Entradas gravadas na base de dados ou descartadas (rollback)
+    void done(Segment segment, int count) {
+        lock.lock();
+        try {
+            segment.outstanding -= count;
+            deleteIfFinished(segment);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Fecha o segmento atual; as próximas entradas vão para um novo
+    void roll() {
+        lock.lock();
+        try {
+            if (current != null) {
+                Segment closing = current;
+                current = null;
+                closing.close();
+                deleteIfFinished(closing);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void deleteIfFinished(Segment segment) {
+        if (segment.closed && segment.outstanding == 0) {
+            try {
+                Files.deleteIfExists(segment.path);
+                owned.remove(segment.path);
+            } catch (IOException e) {
+                logger.warn("Não foi possível apagar o segmento {}: {}", segment.path, e.getMessage());
+            }
+        }
+    }
+
+    private List<Path> leftoverSegments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = files
+                    .filter(p -> p.getFileName().toString().startsWith(PREFIX) && p.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList();
+            lock.lock();
+            try {
+                // Os segmentos desta execução não são sobras
+                segments = segments.stream().filter(p -> !owned.contains(p)).toList();
+            } finally {
+                lock.unlock();
+            }
+            if (!segments.isEmpty()) {
+                // Os novos segmentos continuam a numeração, para não colidir com os que ficam por apagar
+                String last = segments.get(segments.size() - 1).getFileName().toString();
+                long index = Long.parseLong(last.substring(PREFIX.length(), last.length() - SUFFIX.length()));
+                lock.lock();
+                try {
+                    nextSegment = Math.max(nextSegment, index + 1);
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return segments;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static final class Segment {
+
+        private final Path path;
+        private final FileChannel channel;
+        private int outstanding;
+        private boolean closed;
+
+        private Segment(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+
+        private void close() {
+            closed = true;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Falha ao fechar o segmento {}: {}", path, e.getMessage());
+            }
+        }
+    }
+}
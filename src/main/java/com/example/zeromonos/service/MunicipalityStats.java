@@ -0,0 +1,10 @@
+package com.example.zeromonos.service;
+
+import com.example.zeromonos.data.BookingState;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+// Contagens de um município: por estado e por dia pedido (todos os estados)
+public record MunicipalityStats(Map<BookingState, Long> byStatus, Map<LocalDate, Long> byDay) {
+}
@@ -0,0 +1,17 @@
+package com.example.zeromonos.service;
+
+import java.time.Instant;
+
+public record MunicipioCacheStats(
+        int size,
+        String source,
+        Instant loadedAt,
+        long ageSeconds,
+        long hits,
+        long misses,
+        long refreshFailures,
+        CircuitBreaker.State circuitState,
+        long coalescedRefreshes,
+        long rejectedRefreshes
+) {
+}
@@ -0,0 +1,16 @@
+package com.example.zeromonos.service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Versão imutável do catálogo de municípios, partilhada entre pedidos.
+ * É substituída por inteiro a cada refrescamento, juntamente com o seu índice.
+ */
+public record MunicipioCatalog(List<String> municipios, MunicipioIndex index, Instant loadedAt, String source) {
+
+    public static MunicipioCatalog of(List<String> municipios, Instant loadedAt, String source) {
+        List<String> copy = List.copyOf(municipios);
+        return new MunicipioCatalog(copy, MunicipioIndex.of(copy), loadedAt, source);
+    }
+}
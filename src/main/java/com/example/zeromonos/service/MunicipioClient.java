@@ -0,0 +1,17 @@
+package com.example.zeromonos.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Origem remota do catálogo de municípios (geoapi.pt). O pedido é assíncrono: o MunicipioService
+ * só vê a resposta ou o erro e nunca prende uma thread à espera do serviço remoto.
+ */
+public interface MunicipioClient {
+
+    Mono<List<String>> fetchMunicipios();
+
+    // Identifica a origem no catálogo e nas estatísticas
+    String source();
+}
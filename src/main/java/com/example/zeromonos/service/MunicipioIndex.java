@@ -0,0 +1,50 @@
+package com.example.zeromonos.service;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de pertença dos municípios, construído uma vez por versão do catálogo.
+ * A chave ignora maiúsculas, acentos e espaços extra; o valor é o nome canónico.
+ */
+public final class MunicipioIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private final Map<String, String> canonicalByKey;
+
+    private MunicipioIndex(Map<String, String> canonicalByKey) {
+        this.canonicalByKey = canonicalByKey;
+    }
+
+    public static MunicipioIndex of(List<String> municipios) {
+        Map<String, String> canonicalByKey = new HashMap<>(municipios.size() * 2);
+        for (String municipio : municipios) {
+            canonicalByKey.putIfAbsent(normalize(municipio), municipio);
+        }
+        return new MunicipioIndex(Map.copyOf(canonicalByKey));
+    }
+
+    public Optional<String> canonicalName(String municipio) {
+        if (municipio == null || municipio.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(canonicalByKey.get(normalize(municipio)));
+    }
+
+    public int size() {
+        return canonicalByKey.size();
+    }
+
+    static String normalize(String municipio) {
+        String decomposed = Normalizer.normalize(municipio.strip(), Normalizer.Form.NFD);
+        String stripped = DIACRITICS.matcher(decomposed).replaceAll("");
+        return SPACES.matcher(stripped).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,25 +1,247 @@
 package com.example.zeromonos.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Catálogo de municípios servido de memória. O geoapi.pt só é contactado em background:
+ * no refrescamento agendado e quando aparece um município desconhecido (que pode ser novo).
+ * Pedidos em simultâneo partilham a mesma chamada remota e, com o serviço remoto em baixo,
+ * o disjuntor recusa logo as chamadas e continua a valer o catálogo atual.
+ */
 @Service
 public class MunicipioService {
 
-    private static final String API_URL = "https://geoapi.pt/municipios";
+    private static final Logger logger = LoggerFactory.getLogger(MunicipioService.class);
 
-    public List<String> getMunicipios() {
-        RestTemplate restTemplate = new RestTemplate();
+    private static final String BUNDLED_SNAPSHOT = "municipios.json";
+    private static final TypeReference<List<String>> LIST_TYPE = new TypeReference<>() {};
+
+    private final MunicipioClient client;
+    private final ObjectMapper objectMapper;
+    private final Path snapshotFile;
+    private final Duration missRefreshInterval;
+    private final CircuitBreaker breaker;
+
+    private volatile MunicipioCatalog catalog;
 
-        String[] municipios = restTemplate.getForObject(API_URL, String[].class);
+    // Chamada remota em curso, partilhada por quem pedir um refrescamento entretanto
+    private final AtomicReference<CompletableFuture<MunicipioCatalog>> inFlight = new AtomicReference<>();
+    private volatile Instant lastAttempt = Instant.EPOCH;
 
-        return Arrays.asList(municipios);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+    private final AtomicLong coalescedRefreshes = new AtomicLong();
+
+    @Autowired
+    public MunicipioService(MunicipioClient client,
+                            ObjectMapper objectMapper,
+                            @Value("${municipios.snapshot-file:}") String snapshotFile,
+                            @Value("${municipios.miss-refresh-interval:PT5M}") Duration missRefreshInterval,
+                            @Value("${municipios.breaker.failure-threshold:3}") int failureThreshold,
+                            @Value("${municipios.breaker.open-duration:PT1M}") Duration openDuration) {
+        this(client, objectMapper, snapshotFile, missRefreshInterval,
+                new CircuitBreaker(failureThreshold, openDuration, Clock.systemUTC()));
+    }
+
+    public MunicipioService(MunicipioClient client, ObjectMapper objectMapper, String snapshotFile,
+                            Duration missRefreshInterval, CircuitBreaker breaker) {
+        this.client = client;
+        this.objectMapper = objectMapper;
+        this.snapshotFile = snapshotFile.isBlank() ? null : Path.of(snapshotFile);
+        this.missRefreshInterval = missRefreshInterval;
+        this.breaker = breaker;
+    }
+
+    // Arranque: último snapshot conhecido ou, na falta dele, o que vem com a aplicação
+    @PostConstruct
+    public void loadSnapshot() {
+        MunicipioCatalog lastKnown = readLastKnownSnapshot();
+        catalog = lastKnown != null ? lastKnown : readBundledSnapshot();
+        logger.info("Catálogo de municípios carregado de {} ({} entradas)",
+                catalog.source(), catalog.municipios().size());
+    }
+
+    // Refrescamento agendado; espera pelo resultado, mas em caso de falha mantém-se o catálogo atual
+    @Scheduled(initialDelayString = "${municipios.refresh-initial-delay:PT0S}",
+               fixedDelayString = "${municipios.refresh-interval:PT6H}")
+    public void refresh() {
+        refreshAsync().exceptionally(e -> null).join();
+    }
+
+    // Uma única chamada remota de cada vez: quem chega enquanto está em curso recebe o mesmo resultado.
+    // Com o disjuntor aberto falha logo, sem contactar o serviço remoto.
+    public CompletableFuture<MunicipioCatalog> refreshAsync() {
+        CompletableFuture<MunicipioCatalog> fetch = new CompletableFuture<>();
+        CompletableFuture<MunicipioCatalog> running = inFlight.compareAndExchange(null, fetch);
+        if (running != null) {
+            coalescedRefreshes.incrementAndGet();
+            return running;
+        }
+        if (!breaker.tryAcquire()) {
+            inFlight.set(null);
+            fetch.completeExceptionally(new IllegalStateException("Disjuntor aberto para " + client.source()));
+            return fetch;
+        }
+        lastAttempt = Instant.now();
+        Mono.defer(client::fetchMunicipios)
+                .map(municipios -> MunicipioCatalog.of(municipios, Instant.now(), client.source()))
+                // O snapshot é gravado em disco: fora das threads do cliente HTTP
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(this::apply)
+                .toFuture()
+                .whenComplete((fresh, error) -> complete(fetch, fresh, error));
+        return fetch;
+    }
+
+    public List<String> getMunicipios() {
+        hits.incrementAndGet();
+        return currentCatalog().municipios();
     }
 
     public boolean isValidMunicipality(String municipio) {
-        return getMunicipios().contains(municipio);
+        return findCanonicalName(municipio).isPresent();
+    }
+
+    // Nome canónico do município, independentemente de maiúsculas e acentos.
+    // Um nome que o catálogo não conhece conta como miss.
+    public Optional<String> findCanonicalName(String municipio) {
+        MunicipioCatalog current = currentCatalog();
+        Optional<String> canonical = current.index().canonicalName(municipio);
+        if (canonical.isPresent()) {
+            hits.incrementAndGet();
+        } else if (municipio != null && !municipio.isBlank()) {
+            misses.incrementAndGet();
+            refreshOnMiss(current);
+        }
+        return canonical;
+    }
+
+    public MunicipioCacheStats getCacheStats() {
+        MunicipioCatalog current = catalog;
+        if (current == null) {
+            return new MunicipioCacheStats(0, null, null, -1, hits.get(), misses.get(), refreshFailures.get(),
+                    breaker.state(), coalescedRefreshes.get(), breaker.rejected());
+        }
+        long age = Duration.between(current.loadedAt(), Instant.now()).toSeconds();
+        return new MunicipioCacheStats(current.municipios().size(), current.source(), current.loadedAt(),
+                age, hits.get(), misses.get(), refreshFailures.get(),
+                breaker.state(), coalescedRefreshes.get(), breaker.rejected());
+    }
+
+    private MunicipioCatalog currentCatalog() {
+        MunicipioCatalog current = catalog;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (catalog == null) {
+                loadSnapshot();
+            }
+            return catalog;
+        }
+    }
+
+    // Um município desconhecido pode ser novo: pede-se o catálogo em background, sem esperar por ele,
+    // e no máximo uma vez por miss-refresh-interval
+    private void refreshOnMiss(MunicipioCatalog current) {
+        Instant last = lastAttempt.isAfter(current.loadedAt()) ? lastAttempt : current.loadedAt();
+        if (!Instant.now().isBefore(last.plus(missRefreshInterval))) {
+            refreshAsync();
+        }
+    }
+
+    private void apply(MunicipioCatalog fresh) {
+        catalog = fresh;
+        writeLastKnownSnapshot(fresh);
+        logger.info("Catálogo de municípios atualizado ({} entradas)", fresh.municipios().size());
+    }
+
+    private void complete(CompletableFuture<MunicipioCatalog> fetch, MunicipioCatalog fresh, Throwable error) {
+        // Libertado antes de completar, para quem reagir ao resultado já poder iniciar outra chamada
+        inFlight.set(null);
+        if (error == null && fresh != null) {
+            breaker.onSuccess();
+            fetch.complete(fresh);
+            return;
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause == null) {
+            cause = new IllegalStateException("Resposta vazia de " + client.source());
+        }
+        breaker.onFailure();
+        refreshFailures.incrementAndGet();
+        logger.warn("Falha ao atualizar catálogo de municípios (disjuntor {}), a manter versão de {}: {}",
+                breaker.state(), catalog != null ? catalog.source() : "nenhuma", cause.toString());
+        fetch.completeExceptionally(cause);
+    }
+
+    private MunicipioCatalog readLastKnownSnapshot() {
+        if (snapshotFile == null || !Files.isReadable(snapshotFile)) {
+            return null;
+        }
+        try {
+            List<String> municipios = objectMapper.readValue(snapshotFile.toFile(), LIST_TYPE);
+            if (municipios.isEmpty()) {
+                return null;
+            }
+            return MunicipioCatalog.of(municipios, Files.getLastModifiedTime(snapshotFile).toInstant(),
+                    snapshotFile.toString());
+        } catch (IOException e) {
+            logger.warn("Snapshot de municípios ilegível em {}: {}", snapshotFile, e.getMessage());
+            return null;
+        }
+    }
+
+    private MunicipioCatalog readBundledSnapshot() {
+        try (InputStream in = new ClassPathResource(BUNDLED_SNAPSHOT).getInputStream()) {
+            return MunicipioCatalog.of(objectMapper.readValue(in, LIST_TYPE), Instant.now(),
+                    "classpath:" + BUNDLED_SNAPSHOT);
+        } catch (IOException e) {
+            throw new IllegalStateException("Snapshot de municípios em falta no classpath", e);
+        }
+    }
+
+    private void writeLastKnownSnapshot(MunicipioCatalog fresh) {
+        if (snapshotFile == null) {
+            return;
+        }
+        try {
+            Path parent = snapshotFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tmp = Files.createTempFile(parent, "municipios", ".tmp");
+            objectMapper.writeValue(tmp.toFile(), fresh.municipios());
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Não foi possível gravar snapshot de municípios em {}: {}", snapshotFile, e.getMessage());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,137 @@
+package com.example.zeromonos.service;
+
+import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingChange;
+import com.example.zeromonos.data.BookingRow;
+import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.data.BookingTokens;
+import com.example.zeromonos.data.BookingView;
+import com.example.zeromonos.data.ChangeSequence;
+import com.example.zeromonos.data.ReactiveBookingRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * Variante não bloqueante do {@link BookingService} (perfil reactive). As leituras vão à base de
+ * dados por R2DBC, com a mesma cache por token e a mesma paginação por keyset. As gravações
+ * continuam no BookingService (locks de admissão, ledger, ChangeSequence e histórico são os
+ * mesmos) e correm no scheduler boundedElastic, nunca nas threads do servidor.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveBookingService {
+
+    private static final BookingCursor NO_CURSOR = new BookingCursor(null, null);
+
+    private final ReactiveBookingRepository repository;
+    private final BookingService bookingService;
+    private final MunicipioService municipioService;
+    private final BookingTokenCache tokenCache;
+    private final ChangeSequence changeSequence;
+
+    public ReactiveBookingService(ReactiveBookingRepository repository, BookingService bookingService,
+                                  MunicipioService municipioService, BookingTokenCache tokenCache,
+                                  ChangeSequence changeSequence) {
+        this.repository = repository;
+        this.bookingService = bookingService;
+        this.municipioService = municipioService;
+        this.tokenCache = tokenCache;
+        this.changeSequence = changeSequence;
+    }
+
+    // Contadores em memória: respondidos logo, sem passar pelo scheduler
+    public BookingStats getStats(String municipality) {
+        return bookingService.getStats(municipality);
+    }
+
+    public Mono<Booking> createBooking(Booking booking) {
+        return blocking(() -> bookingService.createBooking(booking));
+    }
+
+    public Mono<List<BookingBatchResult>> createBookings(List<Booking> bookings) {
+        return blocking(() -> bookingService.createBookings(bookings));
+    }
+
+    public Mono<BookingView> updateBookingStatus(String token, BookingState novoEstado) {
+        return blocking(() -> bookingService.updateBookingStatus(token, novoEstado));
+    }
+
+    public Mono<List<BookingTransitionResult>> updateBookingStatuses(List<String> tokens, BookingState novoEstado) {
+        return blocking(() -> bookingService.updateBookingStatuses(tokens, novoEstado));
+    }
+
+    // Entidades com histórico: o grafo é carregado por JPA, por isso também fica fora do event loop
+    public Mono<BookingPage<Booking>> listBookingsWithHistory(BookingFilter filter, String cursor, int size) {
+        return blocking(() -> bookingService.listBookingsWithHistory(filter, cursor, size));
+    }
+
+    // Projeção do booking por token; servida pela cache sempre que possível
+    public Mono<BookingView> getBookingViewByToken(String token) {
+        Optional<UUID> value = BookingTokens.parse(token);
+        if (value.isEmpty()) {
+            return Mono.empty();
+        }
+        Optional<BookingView> cached = tokenCache.get(BookingTokens.format(value.get()));
+        if (cached.isPresent()) {
+            return Mono.just(cached.get());
+        }
+        return repository.findByToken(value.get())
+                .map(BookingRow::toChange)
+                .doOnNext(tokenCache::load)
+                .map(BookingChange::view);
+    }
+
+    // Listagem paginada por keyset (requestedDate, id), com filtros opcionais
+    public Mono<BookingPage<BookingView>> listBookings(BookingFilter filter, String cursor, int size) {
+        return Mono.fromCallable(() -> {
+                    BookingService.checkPageSize(size);
+                    return cursor == null ? NO_CURSOR : BookingCursor.decode(cursor);
+                })
+                .flatMap(position -> repository.findPage(canonical(filter.municipality()), filter.status(),
+                                filter.from(), filter.to(), position.requestedDate(), position.id(), size + 1)
+                        .map(BookingRow::toView)
+                        .collectList())
+                .map(rows -> {
+                    List<BookingView> page = rows.size() <= size ? rows : rows.subList(0, size);
+                    String nextCursor = rows.size() > size ? BookingCursor.of(page.get(size - 1)).encode() : null;
+                    return new BookingPage<>(page, nextCursor);
+                });
+    }
+
+    // Delta sync até à marca de água, como em BookingService.listChanges
+    public Mono<BookingPage<BookingView>> listChanges(String since, int size) {
+        return Mono.fromCallable(() -> {
+                    BookingService.checkPageSize(size);
+                    return ChangeCursor.decode(since);
+                })
+                .flatMap(position -> repository.findChangesAfter(position.changeSeq(), position.id(),
+                                changeSequence.watermark(), size)
+                        .map(BookingRow::toChange)
+                        .collectList()
+                        .map(changes -> {
+                            ChangeCursor next = changes.isEmpty() ? position : ChangeCursor.of(changes.get(changes.size() - 1));
+                            return new BookingPage<>(changes.stream().map(BookingChange::view).toList(), next.encode());
+                        }));
+    }
+
+    // Todos os bookings, pela ordem da listagem, ao ritmo a que o cliente os consome
+    public Flux<BookingView> exportBookings() {
+        return repository.findAllBy(BookingService.KEYSET_ORDER).map(BookingRow::toView);
+    }
+
+    private String canonical(String municipality) {
+        return municipality == null ? null : municipioService.findCanonicalName(municipality).orElse(municipality);
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
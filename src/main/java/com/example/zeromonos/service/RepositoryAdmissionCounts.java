@@ -0,0 +1,42 @@
+package com.example.zeromonos.service;
+
+import com.example.zeromonos.data.BookingRepository;
+import com.example.zeromonos.data.BookingState;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Set;
+
+@Component
+@Primary
+@ConditionalOnProperty(name = "bookings.admission.source", havingValue = "database")
+public class RepositoryAdmissionCounts implements AdmissionCounts {
+
+    private static final Set<BookingState> FREES_SLOT = EnumSet.of(BookingState.CANCELADO);
+    private static final Set<BookingState> ACTIVE = EnumSet.complementOf(EnumSet.of(BookingState.CANCELADO, BookingState.CONCLUIDO));
+
+    private final BookingRepository repository;
+
+    public RepositoryAdmissionCounts(BookingRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public long countForDay(String municipality, LocalDate date) {
+        return repository.countByMunicipalityAndRequestedDate(municipality, date);
+    }
+
+    @Override
+    public boolean isSlotTaken(LocalDate date, String timeSlot) {
+        return repository.existsByRequestedDateAndTimeSlotAndStatusNotIn(date, timeSlot, FREES_SLOT);
+    }
+
+    @Override
+    public long countActive() {
+        // IN sobre os estados ativos percorre só essa parte do índice de status
+        return repository.countByStatusIn(ACTIVE);
+    }
+}
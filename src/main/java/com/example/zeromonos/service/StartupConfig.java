@@ -0,0 +1,20 @@
+package com.example.zeromonos.service;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Arranque com spring.main.lazy-initialization=true: os beans só são criados no primeiro uso,
+ * exceto os que têm trabalho de arranque que não pode ficar para o primeiro pedido (ocupação do
+ * ledger, catálogo de municípios e o seu refrescamento agendado, reposição do journal do histórico).
+ */
+@Configuration(proxyBeanMethods = false)
+public class StartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                BookingLedger.class, MunicipioService.class, WriteBehindHistorySink.class);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.zeromonos.service;
+
+import java.time.Instant;
+
+// Cópia de segurança gravada: ficheiro, tamanho em bytes, instante e duração
+public record StorageBackup(String file, long sizeBytes, Instant createdAt, long durationMillis) {
+}
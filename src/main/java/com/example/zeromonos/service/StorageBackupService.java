@@ -0,0 +1,86 @@
+package com.example.zeromonos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Cópias de segurança da base de dados em ficheiro (perfil persistent), feitas com o BACKUP do H2:
+ * uma cópia consistente em zip, sem parar a aplicação nem bloquear as gravações.
+ * Só as backup-retention cópias mais recentes são mantidas.
+ */
+@Service
+@Profile("persistent")
+public class StorageBackupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageBackupService.class);
+
+    private static final String PREFIX = "zeromonos-";
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path backupDir;
+    private final int retention;
+
+    public StorageBackupService(JdbcTemplate jdbcTemplate,
+                                @Value("${bookings.storage.backup-dir}") Path backupDir,
+                                @Value("${bookings.storage.backup-retention:7}") int retention) {
+        if (retention < 1) {
+            throw new IllegalArgumentException("bookings.storage.backup-retention deve ser positivo");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.backupDir = backupDir;
+        this.retention = retention;
+    }
+
+    // Uma cópia de cada vez: duas em simultâneo só duplicariam o trabalho de I/O
+    public synchronized StorageBackup backup() {
+        Instant start = Instant.now();
+        Path target = backupDir.resolve(PREFIX + STAMP.format(start) + ".zip");
+        try {
+            Files.createDirectories(backupDir);
+            jdbcTemplate.update("BACKUP TO ?", target.toAbsolutePath().toString());
+            StorageBackup backup = new StorageBackup(target.toString(), Files.size(target), start,
+                    Instant.now().toEpochMilli() - start.toEpochMilli());
+            logger.info("Cópia de segurança gravada em {} ({} bytes, {} ms)",
+                    backup.file(), backup.sizeBytes(), backup.durationMillis());
+            prune();
+            return backup;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível gravar a cópia de segurança em " + target, e);
+        }
+    }
+
+    // Cópias existentes, da mais recente para a mais antiga
+    public List<Path> listBackups() throws IOException {
+        if (!Files.isDirectory(backupDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(backupDir)) {
+            return files.filter(f -> f.getFileName().toString().startsWith(PREFIX) && f.toString().endsWith(".zip"))
+                    .sorted((a, b) -> b.getFileName().compareTo(a.getFileName()))
+                    .toList();
+        }
+    }
+
+    private void prune() throws IOException {
+        List<Path> backups = listBackups();
+        for (Path old : backups.subList(Math.min(retention, backups.size()), backups.size())) {
+            Files.deleteIfExists(old);
+            logger.info("Cópia de segurança antiga removida: {}", old);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.zeromonos.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Catálogo dos horários de recolha. A posição de cada horário é o seu bit nas máscaras
+ * de ocupação do {@link BookingLedger}.
+ */
+public final class TimeSlots {
+
+    public static final List<String> ALL = List.of(
+            "09:00-11:00", "11:00-13:00", "13:00-15:00", "15:00-17:00", "17:00-19:00");
+
+    private TimeSlots() {
+    }
+
+    // 0 para horários fora do catálogo, que não entram nas máscaras
+    static int bit(String timeSlot) {
+        int index = ALL.indexOf(timeSlot);
+        return index < 0 ? 0 : 1 << index;
+    }
+
+    // Horários do catálogo cujo bit não está na máscara
+    static List<String> free(int takenMask) {
+        List<String> free = new ArrayList<>(ALL.size());
+        for (int i = 0; i < ALL.size(); i++) {
+            if ((takenMask & (1 << i)) == 0) {
+                free.add(ALL.get(i));
+            }
+        }
+        return free;
+    }
+}
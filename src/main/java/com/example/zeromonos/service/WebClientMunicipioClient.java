@@ -0,0 +1,62 @@
+package com.example.zeromonos.service;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cliente não bloqueante do geoapi.pt, com timeouts de ligação e de resposta. Um serviço
+ * remoto lento resulta num erro ao fim de connect-timeout + read-timeout, nunca numa espera sem fim.
+ */
+@Component
+public class WebClientMunicipioClient implements MunicipioClient {
+
+    private final WebClient webClient;
+    private final String apiUrl;
+    private final Duration deadline;
+
+    public WebClientMunicipioClient(WebClient.Builder webClientBuilder,
+                                    @Value("${municipios.api-url:https://geoapi.pt/municipios}") String apiUrl,
+                                    @Value("${municipios.connect-timeout:PT2S}") Duration connectTimeout,
+                                    @Value("${municipios.read-timeout:PT5S}") Duration readTimeout) {
+        HttpClient httpClient = HttpClient.create()
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(connectTimeout.toMillis()))
+                .responseTimeout(readTimeout);
+        this.webClient = webClientBuilder.clone()
+                .baseUrl(apiUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+        this.apiUrl = apiUrl;
+        this.deadline = connectTimeout.plus(readTimeout);
+    }
+
+    @Override
+    public Mono<List<String>> fetchMunicipios() {
+        return webClient.get()
+                .retrieve()
+                .bodyToMono(String[].class)
+                .timeout(deadline)
+                .defaultIfEmpty(new String[0])
+                .map(this::requireNonEmpty);
+    }
+
+    @Override
+    public String source() {
+        return apiUrl;
+    }
+
+    // Uma resposta sem municípios é tratada como falha, para nunca substituir o catálogo por um vazio
+    private List<String> requireNonEmpty(String[] municipios) {
+        if (municipios.length == 0) {
+            throw new IllegalStateException("Resposta vazia de " + apiUrl);
+        }
+        return List.of(municipios);
+    }
+}
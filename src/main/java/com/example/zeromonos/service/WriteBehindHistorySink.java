@@ -0,0 +1,232 @@
+package com.example.zeromonos.service;
+
+import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingHistorySink;
+import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.data.BookingStateHistory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Histórico em write-behind: as transições fazem commit só com o UPDATE do booking e as linhas de
+ * histórico seguem por uma fila limitada para um escritor em background, que as grava em lotes
+ * quando a fila atinge bookings.history.batch-size ou passa bookings.history.flush-interval.
+ * Antes de cada commit as entradas são forçadas para o {@link HistoryJournal}; as que um crash
+ * deixe por gravar são repostas no arranque, e o encerramento esvazia a fila.
+ */
+@Component
+@ConditionalOnProperty(name = "bookings.history.mode", havingValue = "write-behind")
+public class WriteBehindHistorySink implements BookingHistorySink {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindHistorySink.class);
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final HistoryJournal journal;
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final Duration flushInterval;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public WriteBehindHistorySink(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                  @Value("${bookings.history.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${bookings.history.batch-size:200}") int batchSize,
+                                  @Value("${bookings.history.flush-interval:PT1S}") Duration flushInterval,
+                                  @Value("${bookings.history.journal-dir}") Path journalDir) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.journal = new HistoryJournal(journalDir);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+    }
+
+    @PostConstruct
+    public void start() {
+        recover();
+        running = true;
+        writer = new Thread(this::runWriter, "history-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Esvazia a fila antes de a aplicação terminar
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join();
+
+        List<Pending> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+        journal.roll();
+        logger.info("Escritor de histórico terminado ({} linhas gravadas no encerramento)", remaining.size());
+    }
+
+    // Repõe as entradas do journal que uma execução anterior não chegou a gravar
+    public void recover() {
+        List<BookingHistoryRecord> leftovers = journal.readLeftovers();
+        if (!leftovers.isEmpty()) {
+            int replayed = transactionTemplate.execute(tx -> {
+                int count = 0;
+                for (BookingHistoryRecord record : leftovers) {
+                    if (shouldReplay(record)) {
+                        persist(record);
+                        count++;
+                    }
+                }
+                return count;
+            });
+            logger.info("Journal do histórico: {} entradas encontradas, {} repostas", leftovers.size(), replayed);
+        }
+        journal.deleteLeftovers();
+    }
+
+    @Override
+    public void record(UUID bookingId, BookingState status, LocalDateTime timestamp) {
+        BookingHistoryRecord record = new BookingHistoryRecord(bookingId, status, timestamp);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(journal.append(List.of(record)), List.of(record));
+            return;
+        }
+
+        // Uma escrita no journal por transação, com todas as linhas que ela produziu
+        TransactionBuffer buffer = (TransactionBuffer) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new TransactionBuffer();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(buffer);
+        }
+        buffer.records.add(record);
+    }
+
+    private void enqueue(HistoryJournal.Segment segment, List<BookingHistoryRecord> records) {
+        for (int i = 0; i < records.size(); i++) {
+            try {
+                queue.put(new Pending(records.get(i), segment));
+            } catch (InterruptedException e) {
+                // As restantes continuam no journal e são repostas no próximo arranque
+                Thread.currentThread().interrupt();
+                logger.warn("Interrompido ao enfileirar histórico; {} linhas ficam só no journal", records.size() - i);
+                return;
+            }
+        }
+    }
+
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        try {
+            while (running) {
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.nanoTime();
+                    Pending next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                    batch.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            // Encerramento: o lote em curso é gravado por stop() juntamente com o resto da fila
+            batch.forEach(queue::offer);
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        // As novas entradas passam a ir para outro segmento, para que este possa ser apagado
+        journal.roll();
+        try {
+            transactionTemplate.executeWithoutResult(tx -> batch.forEach(p -> persist(p.record())));
+        } catch (RuntimeException e) {
+            // Ficam no journal e são repostas no próximo arranque
+            logger.error("Falha ao gravar {} linhas de histórico: {}", batch.size(), e.getMessage());
+            return;
+        }
+
+        Map<HistoryJournal.Segment, Integer> perSegment = new HashMap<>();
+        batch.forEach(p -> perSegment.merge(p.segment(), 1, Integer::sum));
+        perSegment.forEach(journal::done);
+    }
+
+    private void persist(BookingHistoryRecord record) {
+        Booking booking = entityManager.getReference(Booking.class, record.bookingId());
+        entityManager.persist(new BookingStateHistory(booking, record.status(), record.timestamp()));
+    }
+
+    // Só se repõe uma linha que falte e cuja transição chegou de facto a ser confirmada
+    private boolean shouldReplay(BookingHistoryRecord record) {
+        List<BookingState> current = entityManager
+                .createQuery("select b.status from Booking b where b.id = :id", BookingState.class)
+                .setParameter("id", record.bookingId())
+                .getResultList();
+        if (current.isEmpty() || !record.status().canReach(current.get(0))) {
+            return false;
+        }
+        Long existing = entityManager.createQuery(
+                        "select count(h) from BookingStateHistory h where h.booking.id = :id and h.status = :status", Long.class)
+                .setParameter("id", record.bookingId())
+                .setParameter("status", record.status())
+                .getSingleResult();
+        return existing == 0;
+    }
+
+    private record Pending(BookingHistoryRecord record, HistoryJournal.Segment segment) {}
+
+    private final class TransactionBuffer implements TransactionSynchronization {
+
+        private final List<BookingHistoryRecord> records = new ArrayList<>();
+        private HistoryJournal.Segment segment;
+
+        // Se o journal falhar, a transação é revertida: nunca há uma transição sem a sua linha
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            segment = journal.append(records);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(WriteBehindHistorySink.this);
+            if (segment == null) {
+                return;
+            }
+            if (status == STATUS_COMMITTED) {
+                enqueue(segment, records);
+            } else {
+                journal.done(segment, records.size());
+            }
+        }
+    }
+}
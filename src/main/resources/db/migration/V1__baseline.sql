@@ -0,0 +1,33 @@
+-- Esquema inicial, igual ao gerado pelo Hibernate a partir das entidades Booking e BookingStateHistory.
+-- Alterações futuras às entidades entram como novas versões (V2__..., V3__...), nunca editando esta.
+
+create sequence booking_state_history_seq start with 1 increment by 50;
+
+create table booking (
+    id uuid not null,
+    token uuid not null,
+    municipality varchar(255),
+    description varchar(255),
+    requested_date date,
+    time_slot varchar(255),
+    status enum ('ATRIBUIDO','CANCELADO','CONCLUIDO','EM_PROG','RECEBIDO'),
+    change_seq bigint,
+    primary key (id),
+    constraint uk_booking_token unique (token)
+);
+
+create table booking_state_history (
+    id bigint not null,
+    timestamp timestamp(6),
+    booking_id uuid,
+    status enum ('ATRIBUIDO','CANCELADO','CONCLUIDO','EM_PROG','RECEBIDO'),
+    primary key (id),
+    constraint fk_booking_state_history_booking foreign key (booking_id) references booking
+);
+
+create index idx_booking_municipality_date on booking (municipality, requested_date);
+create index idx_booking_date_slot_status on booking (requested_date, time_slot, status);
+create index idx_booking_status on booking (status);
+create index idx_booking_date_id on booking (requested_date, id);
+create index idx_booking_status_date on booking (status, requested_date);
+create index idx_booking_change_seq on booking (change_seq, id);
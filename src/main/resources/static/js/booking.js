@@ -20,14 +20,54 @@ fetch("/api/municipios")
     bookingError.textContent = "Erro ao carregar municípios: " + err.message;
   });
 
-// Preencher timeslots
-const timeslots = ["09:00-11:00","11:00-13:00","13:00-15:00","15:00-17:00","17:00-19:00"];
-timeslots.forEach(slot => {
-  const opt = document.createElement("option");
-  opt.value = slot;
-  opt.textContent = slot;
-  timeslotSelect.appendChild(opt);
-});
+// Preencher timeslots a partir do catálogo do servidor
+fetch("/api/availability/slots")
+  .then(r => r.json())
+  .then(slots => {
+    slots.forEach(slot => {
+      const opt = document.createElement("option");
+      opt.value = slot;
+      opt.textContent = slot;
+      timeslotSelect.appendChild(opt);
+    });
+    refreshAvailability();
+  })
+  .catch(err => {
+    bookingError.textContent = "Erro ao carregar horários: " + err.message;
+  });
+
+// Com município e data escolhidos, desativa os horários ocupados antes de o pedido ser submetido
+const requestedDateInput = document.getElementById("requestedDate");
+municipalitySelect.addEventListener("change", refreshAvailability);
+requestedDateInput.addEventListener("change", refreshAvailability);
+
+async function refreshAvailability() {
+  const municipality = municipalitySelect.value;
+  const date = requestedDateInput.value;
+  const options = Array.from(timeslotSelect.options);
+  options.forEach(opt => opt.disabled = false);
+  bookingError.textContent = "";
+  if (!municipality || !date) return;
+
+  try {
+    const params = new URLSearchParams({ municipality, from: date, to: date });
+    const resp = await fetch(`/api/availability?${params}`);
+    if (!resp.ok) return;
+    const days = await resp.json();
+    // Fim de semana ou sem a antecedência mínima: a validação do servidor explica ao submeter
+    if (!days.length) return;
+
+    const free = new Set(days[0].freeSlots);
+    options.forEach(opt => opt.disabled = !free.has(opt.value));
+    if (!free.size) {
+      bookingError.textContent = "Não há horários disponíveis para este dia.";
+    } else if (timeslotSelect.selectedOptions.length && timeslotSelect.selectedOptions[0].disabled) {
+      timeslotSelect.value = options.find(opt => !opt.disabled).value;
+    }
+  } catch (err) {
+    console.error(err);
+  }
+}
 
 // Submeter novo pedido
 document.getElementById("bookingForm").addEventListener("submit", e => {
@@ -53,6 +93,7 @@ document.getElementById("bookingForm").addEventListener("submit", e => {
   })
   .then(data => {
     bookingSuccess.textContent = "Pedido criado com sucesso! Guarde o seu código: " + data.token;
+    refreshAvailability();
   })
   .catch(err => {
     bookingError.textContent = "Erro: " + err.message;
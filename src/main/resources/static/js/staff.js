@@ -1,45 +1,117 @@
 const loadBtn = document.getElementById("loadBtn");
+const moreBtn = document.getElementById("moreBtn");
+const startAllBtn = document.getElementById("startAllBtn");
 const tableBody = document.querySelector("#bookingsTable tbody");
 
-loadBtn.addEventListener("click", async () => {
+// Cursor da página seguinte devolvido pelo servidor (header X-Next-Cursor)
+let nextCursor = null;
+// Ligação SSE com as alterações do município carregado
+let events = null;
+
+loadBtn.addEventListener("click", () => loadPage(false));
+moreBtn.addEventListener("click", () => loadPage(true));
+startAllBtn.addEventListener("click", () => startAll());
+
+async function loadPage(append) {
   const municipality = document.getElementById("municipalityInput").value.trim();
-  const url = municipality
-    ? `/api/bookings?municipality=${encodeURIComponent(municipality)}`
-    : `/api/bookings`;
+  const params = new URLSearchParams();
+  if (municipality) params.set("municipality", municipality);
+  if (append && nextCursor) params.set("after", nextCursor);
+  const query = params.toString();
+  const url = query ? `/api/bookings?${query}` : `/api/bookings`;
 
   try {
     const response = await fetch(url);
     const bookings = await response.json();
+    nextCursor = response.headers.get("X-Next-Cursor");
+    moreBtn.style.display = nextCursor ? "" : "none";
 
-    tableBody.innerHTML = "";
-
-    bookings.forEach(b => {
-      const status = (b.status || "").toUpperCase();
-
-      let actionButton = '';
-      if (status === "RECEBIDO") {
-        actionButton = `<button onclick="updateStatus('${b.token}', 'EM_PROG')">Em Progresso</button>`;
-      } else if (status === "EM_PROG") {
-        actionButton = `<button onclick="updateStatus('${b.token}', 'CONCLUIDO')">Concluído</button>`;
-      } else {
-        actionButton = '<em>--------------</em>';
-      }
-
-      const tr = document.createElement("tr");
-      tr.innerHTML = `
-        <td>${b.municipality}</td>
-        <td>${b.description}</td>
-        <td>${b.requestedDate}</td>
-        <td>${b.timeSlot || "—"}</td>
-        <td>${status}</td>
-        <td>${actionButton}</td>
-      `;
-      tableBody.appendChild(tr);
-    });
+    if (!append) {
+      tableBody.innerHTML = "";
+      subscribe(municipality);
+    }
+
+    bookings.forEach(b => upsertRow(b, false));
+    refreshStartAll();
   } catch (err) {
     alert("Erro ao carregar bookings: " + err.message);
   }
-});
+}
+
+// Depois do primeiro carregamento, a tabela é atualizada linha a linha pelos eventos do servidor
+function subscribe(municipality) {
+  if (events) events.close();
+  const url = municipality ? `/api/bookings/events?municipality=${encodeURIComponent(municipality)}` : `/api/bookings/events`;
+  events = new EventSource(url);
+
+  events.addEventListener("booking", e => {
+    upsertRow(JSON.parse(e.data), true);
+    refreshStartAll();
+  });
+  events.addEventListener("removed", e => {
+    const row = findRow(JSON.parse(e.data).token);
+    if (row) row.remove();
+    refreshStartAll();
+  });
+  // Qualquer erro pode ter perdido eventos: o EventSource volta a ligar sozinho (por exemplo, no fim
+  // do timeout do pedido), e a lista é recarregada quando reabre; fechado de vez, recarrega já
+  let stale = false;
+  events.onopen = () => {
+    if (stale) loadPage(false);
+  };
+  events.onerror = () => {
+    stale = true;
+    if (events.readyState === EventSource.CLOSED) loadPage(false);
+  };
+}
+
+function findRow(token) {
+  return tableBody.querySelector(`tr[data-token="${token}"]`);
+}
+
+// Pedidos novos entram no topo da tabela; os existentes são substituídos no lugar
+function upsertRow(b, prepend) {
+  const status = (b.status || "").toUpperCase();
+
+  let actionButton = '';
+  if (status === "RECEBIDO") {
+    actionButton = `<button onclick="updateStatus('${b.token}', 'EM_PROG')">Em Progresso</button>`;
+  } else if (status === "EM_PROG") {
+    actionButton = `<button onclick="updateStatus('${b.token}', 'CONCLUIDO')">Concluído</button>`;
+  } else {
+    actionButton = '<em>--------------</em>';
+  }
+
+  const tr = document.createElement("tr");
+  tr.dataset.token = b.token;
+  tr.dataset.status = status;
+  tr.innerHTML = `
+    <td>${b.municipality}</td>
+    <td>${b.description}</td>
+    <td>${b.requestedDate}</td>
+    <td>${b.timeSlot || "—"}</td>
+    <td>${status}</td>
+    <td>${actionButton}</td>
+  `;
+
+  const existing = findRow(b.token);
+  if (existing) {
+    existing.replaceWith(tr);
+  } else if (prepend) {
+    tableBody.prepend(tr);
+  } else {
+    tableBody.appendChild(tr);
+  }
+}
+
+// Tokens dos pedidos RECEBIDO presentes na tabela
+function receivedTokens() {
+  return Array.from(tableBody.querySelectorAll('tr[data-status="RECEBIDO"]')).map(tr => tr.dataset.token);
+}
+
+function refreshStartAll() {
+  startAllBtn.style.display = receivedTokens().length ? "" : "none";
+}
 
 async function updateStatus(token, status) {
   try {
@@ -50,9 +122,38 @@ async function updateStatus(token, status) {
       throw new Error(errMsg);
     }
 
+    upsertRow(await resp.json(), false);
+    refreshStartAll();
     alert(`Estado atualizado para ${status}`);
-    loadBtn.click();
   } catch (err) {
     alert(`Erro ao atualizar estado: ${err.message}`);
   }
-}
\ No newline at end of file
+}
+
+// Passa todos os pedidos RECEBIDO carregados para EM_PROG num só pedido
+async function startAll() {
+  try {
+    const resp = await fetch(`/api/bookings/status?status=EM_PROG`, {
+      method: "PUT",
+      headers: { "Content-Type": "application/json" },
+      body: JSON.stringify(receivedTokens())
+    });
+
+    if (!resp.ok) {
+      const errMsg = await resp.text();
+      throw new Error(errMsg);
+    }
+
+    const results = await resp.json();
+    const failed = results.filter(r => r.error);
+    // As linhas chegam pelos eventos; marca-se já o novo estado para não voltarem a ser enviadas
+    results.filter(r => !r.error).forEach(r => {
+      const row = findRow(r.token);
+      if (row) row.dataset.status = r.status;
+    });
+    refreshStartAll();
+    alert(`${results.length - failed.length} pedidos em progresso` + (failed.length ? `, ${failed.length} rejeitados` : ""));
+  } catch (err) {
+    alert(`Erro ao atualizar estados: ${err.message}`);
+  }
+}
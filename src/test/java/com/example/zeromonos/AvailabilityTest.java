@@ -0,0 +1,110 @@
+package com.example.zeromonos;
+
+import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingRepository;
+import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.service.BookingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "bookings.admission.max-active=100")
+@AutoConfigureMockMvc
+class AvailabilityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private LocalDate date;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        date = LocalDate.now().plusDays(7);
+        while (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            date = date.plusDays(1);
+        }
+    }
+
+    @Test
+    void TakenSlotIsUnavailableForEveryMunicipalityUntilCancelled() throws Exception {
+        Booking booking = bookingService.createBooking(booking("Lisboa", "09:00-11:00"));
+
+        mockMvc.perform(get("/api/availability").param("municipality", "Porto")
+                        .param("from", date.toString()).param("to", date.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].remaining").value(5))
+                .andExpect(jsonPath("$[0].freeSlots", hasSize(4)))
+                .andExpect(jsonPath("$[0].freeSlots", not(hasItem("09:00-11:00"))));
+
+        bookingService.updateBookingStatus(booking.getToken(), BookingState.CANCELADO);
+
+        mockMvc.perform(get("/api/availability").param("municipality", "Lisboa")
+                        .param("from", date.toString()).param("to", date.toString()))
+                .andExpect(jsonPath("$[0].remaining").value(4))
+                .andExpect(jsonPath("$[0].freeSlots", hasItem("09:00-11:00")));
+    }
+
+    @Test
+    void FullDayHasNoFreeSlots() throws Exception {
+        String[] slots = {"09:00-11:00", "11:00-13:00", "13:00-15:00", "15:00-17:00", "17:00-19:00"};
+        for (int i = 0; i < 4; i++) {
+            bookingService.createBooking(booking("Lisboa", slots[i]));
+        }
+        bookingService.createBooking(booking("Lisboa", "19:00-20:00"));
+
+        mockMvc.perform(get("/api/availability").param("municipality", "Lisboa")
+                        .param("from", date.toString()).param("to", date.toString()))
+                .andExpect(jsonPath("$[0].remaining").value(0))
+                .andExpect(jsonPath("$[0].freeSlots", empty()));
+        mockMvc.perform(get("/api/availability").param("municipality", "Porto")
+                        .param("from", date.toString()).param("to", date.toString()))
+                .andExpect(jsonPath("$[0].freeSlots", contains("17:00-19:00")));
+    }
+
+    @Test
+    void RangeSkipsWeekendsAndDaysTooSoon() throws Exception {
+        mockMvc.perform(get("/api/availability").param("municipality", "Lisboa")
+                        .param("from", LocalDate.now().toString())
+                        .param("to", LocalDate.now().plusDays(13).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].date", greaterThanOrEqualTo(LocalDate.now().plusDays(3).toString())))
+                .andExpect(jsonPath("$.length()", lessThanOrEqualTo(8)))
+                .andExpect(jsonPath("$[*].freeSlots", everyItem(hasSize(5))));
+    }
+
+    @Test
+    void RejectsUnknownMunicipalityAndLongRanges() throws Exception {
+        mockMvc.perform(get("/api/availability").param("municipality", "Inexistente"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/availability").param("municipality", "Lisboa")
+                        .param("from", date.toString()).param("to", date.plusDays(200).toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Booking booking(String municipality, String timeSlot) {
+        Booking b = new Booking();
+        b.setMunicipality(municipality);
+        b.setDescription("Disponibilidade");
+        b.setRequestedDate(date);
+        b.setTimeSlot(timeSlot);
+        return b;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.zeromonos;
+
+import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.service.BookingService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latência de createBooking com as contagens de admissão feitas pela base de dados,
+ * à medida que a tabela cresce. Corre com: mvn test -Pbenchmark -Dtest=BookingAdmissionBenchmarkTest
+ * (tamanhos configuráveis com -Dbenchmark.rows=1000,10000,100000,1000000).
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "bookings.admission.source=database")
+class BookingAdmissionBenchmarkTest {
+
+    private static final String[] MUNICIPIOS = {"Lisboa", "Porto", "Coimbra", "Braga", "Faro", "Aveiro", "Évora", "Viseu"};
+    private static final String[] SLOTS = {"09:00-11:00", "11:00-13:00", "13:00-15:00", "15:00-17:00", "17:00-19:00"};
+    private static final int SAMPLES = 200;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void createLatencyStaysFlatAsTableGrows() {
+        List<Integer> sizes = Arrays.stream(System.getProperty("benchmark.rows", "1000,10000,100000,1000000").split(","))
+                .map(String::trim)
+                .map(Integer::parseInt)
+                .toList();
+
+        jdbcTemplate.update("DELETE FROM booking_state_history");
+        jdbcTemplate.update("DELETE FROM booking");
+
+        int seeded = 0;
+        List<Double> medians = new ArrayList<>();
+        for (int size : sizes) {
+            seed(seeded, size);
+            seeded = size;
+
+            double[] micros = measureCreates();
+            double median = percentile(micros, 50);
+            medians.add(median);
+            System.out.printf("rows=%,d  create p50=%.0fµs  p95=%.0fµs  p99=%.0fµs%n",
+                    size, median, percentile(micros, 95), percentile(micros, 99));
+        }
+
+        // Com índices a latência não deve crescer com o tamanho da tabela
+        assertThat(medians.get(medians.size() - 1)).isLessThan(medians.get(0) * 5);
+    }
+
+    // Linhas históricas (passado, já concluídas) inseridas por JDBC em lotes
+    private void seed(int from, int to) {
+        LocalDate base = LocalDate.of(2000, 1, 3);
+        List<Object[]> batch = new ArrayList<>(10_000);
+        for (int i = from; i < to; i++) {
+            batch.add(new Object[]{
+                    UUID.randomUUID(),
+                    MUNICIPIOS[i % MUNICIPIOS.length],
+                    "Histórico " + i,
+                    Date.valueOf(base.plusDays(i / 400)),
+                    SLOTS[i % SLOTS.length],
+                    UUID.randomUUID(),
+                    (i % 7 == 0 ? BookingState.CANCELADO : BookingState.CONCLUIDO).name()
+            });
+            if (batch.size() == 10_000) {
+                insert(batch);
+            }
+        }
+        insert(batch);
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO booking (id, municipality, description, requested_date, time_slot, token, status) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+
+    // Cada criação é cancelada a seguir para não esbarrar no limite de reservas ativas
+    private double[] measureCreates() {
+        LocalDate date = LocalDate.now().plusDays(7);
+        double[] micros = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            while (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                date = date.plusDays(1);
+            }
+            Booking booking = new Booking();
+            booking.setMunicipality(MUNICIPIOS[i % MUNICIPIOS.length]);
+            booking.setDescription("Benchmark");
+            booking.setRequestedDate(date);
+            booking.setTimeSlot(SLOTS[i % SLOTS.length]);
+
+            long start = System.nanoTime();
+            Booking saved = bookingService.createBooking(booking);
+            micros[i] = (System.nanoTime() - start) / 1_000.0;
+
+            transactionTemplate.executeWithoutResult(
+                    tx -> bookingService.updateBookingStatus(saved.getToken(), BookingState.CANCELADO));
+            date = date.plusDays(1);
+        }
+        return micros;
+    }
+
+    private static double percentile(double[] values, int p) {
+        List<Double> sorted = new ArrayList<>(Arrays.stream(values).boxed().toList());
+        Collections.sort(sorted);
+        return sorted.get(Math.min(sorted.size() - 1, sorted.size() * p / 100));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.zeromonos;
+
+import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingRepository;
+import com.example.zeromonos.data.BookingState;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Operações em lote têm de ser gravadas em poucos statements (JDBC batching), não um por booking.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "bookings.admission.max-active=10000"
+})
+@AutoConfigureMockMvc
+class BookingBatchTest {
+
+    private static final int ITEMS = 1_000;
+    private static final String[] SLOTS = {"09:00-11:00", "11:00-13:00", "13:00-15:00", "15:00-17:00", "17:00-19:00"};
+    private static final String[] MUNICIPIOS = {"Lisboa", "Porto", "Coimbra", "Braga", "Faro"};
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void LargeBatchIsInsertedInFewStatements() throws Exception {
+        List<Booking> items = new ArrayList<>();
+        LocalDate date = weekdayOnOrAfter(LocalDate.now().plusDays(5));
+        for (int i = 0; i < ITEMS; i++) {
+            // Um horário por município e dia: cinco bookings por dia, um de cada município
+            if (i > 0 && i % SLOTS.length == 0) {
+                date = weekdayOnOrAfter(date.plusDays(1));
+            }
+            Booking b = new Booking();
+            b.setMunicipality(MUNICIPIOS[i % MUNICIPIOS.length]);
+            b.setDescription("Monos " + i);
+            b.setRequestedDate(date);
+            b.setTimeSlot(SLOTS[i % SLOTS.length]);
+            items.add(b);
+        }
+
+        mockMvc.perform(post("/api/bookings/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(items)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(ITEMS))
+                .andExpect(jsonPath("$[?(@.error != null)]").isEmpty());
+
+        assertEquals(ITEMS, bookingRepository.count());
+        assertEquals(2L * ITEMS, statistics.getEntityInsertCount());
+        // 1000 bookings + 1000 linhas de histórico em lotes de 50, mais a sequência do histórico
+        assertTrue(statistics.getPrepareStatementCount() < 100,
+                "statements: " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void NullItemIsRejectedWithoutFailingTheBatch() throws Exception {
+        Booking b = new Booking();
+        b.setMunicipality("Lisboa");
+        b.setDescription("Monos");
+        b.setRequestedDate(weekdayOnOrAfter(LocalDate.now().plusDays(5)));
+        b.setTimeSlot(SLOTS[0]);
+
+        mockMvc.perform(post("/api/bookings/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[" + objectMapper.writeValueAsString(b) + ", null]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].token").exists())
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].error").value("Pedido em falta no lote"));
+
+        assertEquals(1, bookingRepository.count());
+    }
+
+    @Test
+    void BulkTransitionIsSetWise() throws Exception {
+        List<Booking> seeded = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Booking b = Booking.newRequest();
+            b.setMunicipality(MUNICIPIOS[i % MUNICIPIOS.length]);
+            b.setDescription("Turno " + i);
+            b.setRequestedDate(LocalDate.of(2030, 1, 7).plusDays(i));
+            b.setTimeSlot(SLOTS[i % SLOTS.length]);
+            seeded.add(b);
+        }
+        bookingRepository.saveAll(seeded);
+        List<String> tokens = seeded.stream().map(Booking::getToken).toList();
+        statistics.clear();
+
+        mockMvc.perform(put("/api/bookings/status")
+                .param("status", "EM_PROG")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(tokens)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(200))
+                .andExpect(jsonPath("$[?(@.status != 'EM_PROG')]").isEmpty());
+
+        // Dois selects e um UPDATE condicional, mais o histórico em lotes de 50 e a sua sequência
+        assertEquals(200, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() < 20,
+                "statements: " + statistics.getPrepareStatementCount());
+        assertEquals(200, bookingRepository.fetchHistory(seeded).stream()
+                .filter(b -> b.getStateHistory().size() == 2).count());
+        assertTrue(bookingRepository.findAll().stream().allMatch(b -> b.getStatus() == BookingState.EM_PROG));
+    }
+
+    private static LocalDate weekdayOnOrAfter(LocalDate date) {
+        while (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            date = date.plusDays(1);
+        }
+        return date;
+    }
+}
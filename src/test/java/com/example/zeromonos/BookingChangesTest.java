@@ -0,0 +1,150 @@
+package com.example.zeromonos;
+
+import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingRepository;
+import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.data.BookingView;
+import com.example.zeromonos.service.BookingPage;
+import com.example.zeromonos.service.BookingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Delta sync: cada pedido devolve só o que mudou depois do cursor, sem nunca saltar alterações
+ * de transações que ainda não fizeram commit.
+ */
+@SpringBootTest(properties = "bookings.admission.max-active=100")
+@AutoConfigureMockMvc
+class BookingChangesTest {
+
+    private static final String[] SLOTS = {"09:00-11:00", "11:00-13:00", "13:00-15:00", "15:00-17:00"};
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private ExecutorService executor;
+    private String start;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        executor = Executors.newSingleThreadExecutor();
+        start = bookingService.listChanges(null, 200).nextCursor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void ChangesSinceCursorReturnsOnlyNewerChanges() throws Exception {
+        Booking first = saved(0);
+        Booking second = saved(1);
+
+        String cursor = mockMvc.perform(get("/api/bookings/changes").param("since", start))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].token").value(first.getToken()))
+                .andExpect(jsonPath("$[1].token").value(second.getToken()))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        bookingService.updateBookingStatus(first.getToken(), BookingState.EM_PROG);
+
+        String next = mockMvc.perform(get("/api/bookings/changes").param("since", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].token").value(first.getToken()))
+                .andExpect(jsonPath("$[0].status").value("EM_PROG"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/bookings/changes").param("since", next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0))
+                .andExpect(header().string("X-Next-Cursor", next));
+    }
+
+    @Test
+    void BulkTransitionIsPagedWithoutLosingRows() {
+        List<String> tokens = List.of(saved(0).getToken(), saved(1).getToken(), saved(2).getToken());
+        String cursor = bookingService.listChanges(start, 200).nextCursor();
+
+        bookingService.updateBookingStatuses(tokens, BookingState.EM_PROG);
+
+        BookingPage<BookingView> page = bookingService.listChanges(cursor, 2);
+        BookingPage<BookingView> rest = bookingService.listChanges(page.nextCursor(), 2);
+        assertEquals(2, page.items().size());
+        assertEquals(1, rest.items().size());
+        assertEquals(3, Stream.concat(page.items().stream(), rest.items().stream())
+                .filter(v -> v.status() == BookingState.EM_PROG).map(BookingView::token).distinct().count());
+    }
+
+    @Test
+    void UncommittedTransitionHoldsBackLaterChanges() throws Exception {
+        Booking slow = saved(0);
+        Booking fast = saved(1);
+        String cursor = bookingService.listChanges(start, 200).nextCursor();
+
+        CountDownLatch updated = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> pending = executor.submit(() -> transactionTemplate.executeWithoutResult(tx -> {
+            bookingService.updateBookingStatus(slow.getToken(), BookingState.EM_PROG);
+            updated.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(updated.await(5, TimeUnit.SECONDS));
+        bookingService.updateBookingStatus(fast.getToken(), BookingState.CANCELADO);
+
+        // O cancelamento já fez commit, mas tem um número maior do que a transição ainda em curso
+        BookingPage<BookingView> held = bookingService.listChanges(cursor, 200);
+        assertTrue(held.items().isEmpty());
+        assertEquals(cursor, held.nextCursor());
+
+        release.countDown();
+        pending.get(5, TimeUnit.SECONDS);
+
+        List<BookingView> changes = bookingService.listChanges(cursor, 200).items();
+        assertEquals(List.of(slow.getToken(), fast.getToken()), changes.stream().map(BookingView::token).toList());
+    }
+
+    private Booking saved(int i) {
+        Booking booking = Booking.newRequest();
+        booking.setMunicipality("Lisboa");
+        booking.setDescription("Delta sync");
+        booking.setRequestedDate(LocalDate.of(2030, 1, 7));
+        booking.setTimeSlot(SLOTS[i]);
+        return bookingRepository.save(booking);
+    }
+}
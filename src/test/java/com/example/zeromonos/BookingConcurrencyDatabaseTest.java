@@ -0,0 +1,10 @@
+package com.example.zeromonos;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Os mesmos cenários de {@link BookingConcurrencyTest}, com as contagens feitas pela base de dados.
+ */
+@SpringBootTest(properties = "bookings.admission.source=database")
+class BookingConcurrencyDatabaseTest extends BookingConcurrencyTest {
+}
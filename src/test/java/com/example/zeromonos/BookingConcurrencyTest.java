@@ -0,0 +1,163 @@
+package com.example.zeromonos;
+
+import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingRepository;
+import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.service.BookingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vários clientes em paralelo a competir pelas mesmas regras de admissão.
+ */
+@SpringBootTest
+class BookingConcurrencyTest {
+
+    private static final int CLIENTS = 64;
+    private static final String[] SLOTS = {"09:00-11:00", "11:00-13:00", "13:00-15:00", "15:00-17:00", "17:00-19:00"};
+    private static final String[] MUNICIPIOS = {"Lisboa", "Porto", "Coimbra", "Braga", "Faro", "Aveiro", "Viseu", "Leiria"};
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+        executor = Executors.newFixedThreadPool(CLIENTS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void OnlyOneClientGetsTheSameTimeSlot() throws Exception {
+        LocalDate date = nextWeekday(5);
+
+        int admitted = race(i -> booking(MUNICIPIOS[i % MUNICIPIOS.length], date, SLOTS[0]));
+
+        assertEquals(1, admitted);
+        assertEquals(1, bookingRepository.count());
+    }
+
+    @Test
+    void ActiveLimitHoldsAcrossDaysAndMunicipalities() throws Exception {
+        int admitted = race(i -> booking(MUNICIPIOS[i % MUNICIPIOS.length], nextWeekday(5 + i), SLOTS[i % SLOTS.length]));
+
+        assertEquals(3, admitted);
+        assertEquals(3, bookingRepository.count());
+    }
+
+    @Test
+    void DailyLimitHoldsForTheSameMunicipality() throws Exception {
+        LocalDate date = nextWeekday(5);
+        // Três pedidos cancelados continuam a contar para o limite diário (5)
+        for (int i = 0; i < 3; i++) {
+            Booking cancelled = bookingService.createBooking(booking("Lisboa", date, SLOTS[i]));
+            bookingService.updateBookingStatus(cancelled.getToken(), BookingState.CANCELADO);
+        }
+
+        int admitted = race(i -> booking("Lisboa", date, SLOTS[i % SLOTS.length]));
+
+        assertEquals(2, admitted);
+        assertEquals(5, bookingRepository.count());
+    }
+
+    @Test
+    void OnlyOneClientAppliesTheSameTransition() throws Exception {
+        Booking booking = bookingService.createBooking(booking("Lisboa", nextWeekday(5), SLOTS[0]));
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            // Metade tenta iniciar, metade tenta cancelar
+            BookingState target = i % 2 == 0 ? BookingState.EM_PROG : BookingState.CANCELADO;
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    bookingService.updateBookingStatus(booking.getToken(), target);
+                    return true;
+                } catch (IllegalArgumentException rejected) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int applied = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                applied++;
+            }
+        }
+
+        // Cada estado entra no histórico uma única vez: RECEBIDO, talvez EM_PROG, e CANCELADO
+        Booking stored = bookingRepository.fetchHistory(List.of(booking)).get(0);
+        assertEquals(stored.getStateHistory().size() - 1, applied);
+        assertEquals(BookingState.CANCELADO, stored.getStatus());
+        assertEquals(stored.getStatus(), stored.getStateHistory().get(stored.getStateHistory().size() - 1).getStatus());
+    }
+
+    private int race(IntFunction<Booking> bookingFor) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            Booking booking = bookingFor.apply(i);
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    bookingService.createBooking(booking);
+                    return true;
+                } catch (IllegalArgumentException rejected) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int admitted = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                admitted++;
+            }
+        }
+        return admitted;
+    }
+
+    private Booking booking(String municipality, LocalDate date, String timeSlot) {
+        Booking b = new Booking();
+        b.setMunicipality(municipality);
+        b.setDescription("Concorrência");
+        b.setRequestedDate(date);
+        b.setTimeSlot(timeSlot);
+        return b;
+    }
+
+    private LocalDate nextWeekday(int daysAhead) {
+        LocalDate date = LocalDate.now().plusDays(daysAhead);
+        while (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            date = date.plusDays(1);
+        }
+        return date;
+    }
+}
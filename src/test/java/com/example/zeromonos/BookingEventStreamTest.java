@@ -0,0 +1,155 @@
+package com.example.zeromonos;
+
+import com.example.zeromonos.data.BookingChangedEvent;
+import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.service.BookingEventStream;
+import com.example.zeromonos.service.MunicipioService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookingEventStreamTest {
+
+    private BookingEventStream stream;
+
+    @BeforeEach
+    void setUp() {
+        stream = new BookingEventStream(4, 2, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.stop();
+    }
+
+    @Test
+    void SubscriberReceivesOnlyItsMunicipalityInOrder() throws Exception {
+        Recorder lisboa = new Recorder(3);
+        Recorder all = new Recorder(4);
+        stream.subscribe("lisboa", lisboa);
+        stream.subscribe(null, all);
+
+        stream.publish(event("Lisboa", BookingState.RECEBIDO));
+        stream.publish(event("Porto", BookingState.RECEBIDO));
+        stream.publish(event("Lisboa", BookingState.EM_PROG));
+        stream.publish(event("Lisboa", BookingState.CONCLUIDO));
+
+        assertTrue(lisboa.received.await(5, TimeUnit.SECONDS));
+        assertTrue(all.received.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(BookingState.RECEBIDO, BookingState.EM_PROG, BookingState.CONCLUIDO),
+                lisboa.events.stream().map(BookingChangedEvent::status).toList());
+        assertEquals(4, all.events.size());
+    }
+
+    @Test
+    void MunicipalityFilterIsCanonicalizedOnSubscribe() throws Exception {
+        MunicipioService municipioService = mock(MunicipioService.class);
+        when(municipioService.findCanonicalName(anyString())).thenReturn(Optional.empty());
+        when(municipioService.findCanonicalName("evora")).thenReturn(Optional.of("Évora"));
+        BookingEventStream canonical = new BookingEventStream(4, 2, false, municipioService);
+        try {
+            Recorder evora = new Recorder(1);
+            canonical.subscribe(" evora ", evora);
+
+            canonical.publish(event("Porto", BookingState.RECEBIDO));
+            canonical.publish(event("Évora", BookingState.RECEBIDO));
+
+            assertTrue(evora.received.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of("Évora"), evora.events.stream().map(BookingChangedEvent::municipality).toList());
+        } finally {
+            canonical.stop();
+        }
+    }
+
+    @Test
+    void SlowSubscriberIsDroppedWithoutBlockingPublishers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Recorder fast = new Recorder(20);
+        Recorder slow = new Recorder(1) {
+            @Override
+            public void send(BookingChangedEvent event) throws Exception {
+                release.await();
+                super.send(event);
+            }
+        };
+        BookingEventStream.Subscription slowSubscription = stream.subscribe(null, slow);
+        stream.subscribe(null, fast);
+
+        // O subscritor lento fica preso no primeiro envio; o rápido acompanha cada publicação
+        for (int i = 0; i < 20; i++) {
+            stream.publish(event("Lisboa", BookingState.RECEBIDO));
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (fast.events.size() <= i && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+        }
+        release.countDown();
+
+        assertTrue(fast.received.await(5, TimeUnit.SECONDS));
+        assertTrue(slowSubscription.isClosed());
+        assertTrue(slow.closed);
+        assertEquals(1, stream.subscriberCount());
+    }
+
+    @Test
+    void FailedSendClosesSubscription() throws Exception {
+        CountDownLatch closed = new CountDownLatch(1);
+        BookingEventStream.Subscription subscription = stream.subscribe(null, new BookingEventStream.Subscriber() {
+            @Override
+            public void send(BookingChangedEvent event) throws Exception {
+                throw new IllegalStateException("ligação fechada");
+            }
+
+            @Override
+            public void close() {
+                closed.countDown();
+            }
+        });
+
+        stream.publish(event("Faro", BookingState.RECEBIDO));
+
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        assertTrue(subscription.isClosed());
+        assertEquals(0, stream.subscriberCount());
+    }
+
+    private static BookingChangedEvent event(String municipality, BookingState status) {
+        return new BookingChangedEvent("token", municipality, "Teste", LocalDate.of(2030, 1, 7),
+                "09:00-11:00", status, UUID.randomUUID(), 1, false);
+    }
+
+    private static class Recorder implements BookingEventStream.Subscriber {
+
+        final List<BookingChangedEvent> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch received;
+        volatile boolean closed;
+
+        Recorder(int expected) {
+            received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void send(BookingChangedEvent event) throws Exception {
+            events.add(event);
+            received.countDown();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.zeromonos;
+
+import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingRepository;
+import com.example.zeromonos.data.BookingState;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bytes alocados por linha ao hidratar bookings com findAll(), e o custo que o construtor
+ * deixou de ter (token aleatório e histórico inicial). Corre com:
+ * mvn test -Pbenchmark -Dtest=BookingHydrationBenchmarkTest (linhas com -Dbenchmark.rows=50000).
+ */
+@Tag("benchmark")
+@SpringBootTest
+class BookingHydrationBenchmarkTest {
+
+    private static final int CONSTRUCTIONS = 100_000;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findAllAllocationPerRow() {
+        int rows = Integer.getInteger("benchmark.rows", 50_000);
+        seed(rows);
+
+        // Aquecimento
+        bookingRepository.findAll();
+        bookingRepository.findAll();
+
+        long before = allocatedBytes();
+        List<Booking> loaded = bookingRepository.findAll();
+        long perRow = (allocatedBytes() - before) / loaded.size();
+
+        long lean = perObject(i -> new Booking());
+        long request = perObject(i -> Booking.newRequest());
+
+        System.out.printf("findAll: %,d linhas, %,d bytes/linha%n", loaded.size(), perRow);
+        System.out.printf("construtor JPA: %,d bytes, novo pedido: %,d bytes (poupados por linha: %,d)%n",
+                lean, request, request - lean);
+
+        assertThat(loaded).allMatch(b -> b.getStatus() == BookingState.CONCLUIDO);
+        assertThat(lean * 4).isLessThan(request);
+    }
+
+    private void seed(int rows) {
+        jdbcTemplate.update("DELETE FROM booking_state_history");
+        jdbcTemplate.update("DELETE FROM booking");
+        List<Object[]> batch = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Object[]{UUID.randomUUID(), "Lisboa", "Histórico " + i,
+                    Date.valueOf(LocalDate.of(2000, 1, 3).plusDays(i / 400)), "09:00-11:00",
+                    UUID.randomUUID(), BookingState.CONCLUIDO.name()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO booking (id, municipality, description, requested_date, time_slot, token, status) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+    }
+
+    private static long perObject(IntFunction<Booking> factory) {
+        Booking[] keep = new Booking[CONSTRUCTIONS];
+        for (int i = 0; i < CONSTRUCTIONS; i++) {
+            keep[i] = factory.apply(i);
+        }
+        long before = allocatedBytes();
+        for (int i = 0; i < CONSTRUCTIONS; i++) {
+            keep[i] = factory.apply(i);
+        }
+        return (allocatedBytes() - before) / CONSTRUCTIONS;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
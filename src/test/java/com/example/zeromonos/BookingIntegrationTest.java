@@ -11,10 +11,13 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.nio.charset.StandardCharsets;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -83,6 +86,39 @@ class BookingIntegrationTest {
                 .andExpect(jsonPath("$.status").value(BookingState.RECEBIDO.toString()));
     }
 
+    @Test
+    void GetBookingByLegacyUuidToken() throws Exception {
+        mockMvc.perform(get("/api/bookings/{token}", booking.getTokenValue().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value(booking.getToken()));
+    }
+
+    @Test
+    void EventStreamPushesStatusChangesForItsMunicipality() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/api/bookings/events").param("municipality", "Lisboa"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(put("/api/bookings/{token}", booking.getToken()).param("status", "EM_PROG"))
+                .andExpect(status().isOk());
+
+        String body = awaitContent(stream, "EM_PROG");
+        assertThat(stream.getResponse().getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+        assertThat(body).contains("event:booking").contains(booking.getToken());
+    }
+
+    @Test
+    void StatsCountByStatusAndDay() throws Exception {
+        mockMvc.perform(put("/api/bookings/{token}", booking.getToken()).param("status", "EM_PROG"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/bookings/stats").param("municipality", "Lisboa"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.byStatus.EM_PROG").value(1))
+                .andExpect(jsonPath("$.municipalities.Lisboa.byDay['" + booking.getRequestedDate() + "']").value(1));
+    }
+
     @Test
     void UpdateBookingStatus() throws Exception {
         mockMvc.perform(put("/api/bookings/{token}", booking.getToken())
@@ -114,6 +150,80 @@ class BookingIntegrationTest {
                 .andExpect(jsonPath("$.status").value(BookingState.CANCELADO.toString()));
     }
 
+    @Test
+    void CachedLookupReflectsCancellation() throws Exception {
+        mockMvc.perform(get("/api/bookings/{token}", booking.getToken()))
+                .andExpect(jsonPath("$.status").value(BookingState.RECEBIDO.toString()));
+
+        mockMvc.perform(delete("/api/bookings/{token}", booking.getToken()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/bookings/{token}", booking.getToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(BookingState.CANCELADO.toString()));
+        mockMvc.perform(get("/api/bookings/cache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits").isNumber())
+                .andExpect(jsonPath("$.evictions").isNumber());
+    }
+
+    @Test
+    void CreateBookingsInBatch() throws Exception {
+        Booking valid = new Booking();
+        valid.setMunicipality("porto");
+        valid.setDescription("Lote válido");
+        valid.setRequestedDate(booking.getRequestedDate());
+        valid.setTimeSlot("11:00-13:00");
+
+        Booking conflict = new Booking();
+        conflict.setMunicipality("Porto");
+        conflict.setDescription("Lote em conflito");
+        conflict.setRequestedDate(booking.getRequestedDate());
+        conflict.setTimeSlot("09:00-11:00");
+
+        Booking invalid = new Booking();
+        invalid.setMunicipality("Inexistente");
+        invalid.setDescription("Lote inválido");
+        invalid.setRequestedDate(booking.getRequestedDate());
+        invalid.setTimeSlot("13:00-15:00");
+
+        mockMvc.perform(post("/api/bookings/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(java.util.List.of(valid, conflict, invalid))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(BookingState.RECEBIDO.toString()))
+                .andExpect(jsonPath("$[0].token").isString())
+                .andExpect(jsonPath("$[1].error").value("Não é possível reservar dois serviços no mesmo horário."))
+                .andExpect(jsonPath("$[2].error").value(org.hamcrest.Matchers.containsString("Município inválido")));
+
+        assertThat(bookingRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void UpdateStatusesInBulk() throws Exception {
+        Booking done = Booking.newRequest();
+        done.setMunicipality("Porto");
+        done.setDescription("Já concluído");
+        done.setRequestedDate(booking.getRequestedDate());
+        done.setTimeSlot("11:00-13:00");
+        done.addState(BookingState.EM_PROG);
+        done.addState(BookingState.CONCLUIDO);
+        bookingRepository.save(done);
+
+        mockMvc.perform(put("/api/bookings/status")
+                .param("status", "EM_PROG")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        java.util.List.of(booking.getToken(), done.getToken(), "inexistente"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(BookingState.EM_PROG.toString()))
+                .andExpect(jsonPath("$[1].error").value("Transição inválida de CONCLUIDO para EM_PROG"))
+                .andExpect(jsonPath("$[2].error").value("Reserva não encontrada para o token fornecido."));
+
+        mockMvc.perform(get("/api/bookings/{token}", booking.getToken()))
+                .andExpect(jsonPath("$.status").value(BookingState.EM_PROG.toString()));
+    }
+
     @Test
     void ShouldRejectBookingWithInvalidMunicipality() throws Exception {
         Booking invalid = new Booking();
@@ -166,4 +276,100 @@ class BookingIntegrationTest {
                 .andExpect(jsonPath("$[0].description").exists())
                 .andExpect(jsonPath("$[0].municipality").value("Lisboa"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void PaginateBookingsWithCursor() throws Exception {
+        for (int i = 1; i <= 4; i++) {
+            Booking extra = new Booking();
+            extra.setMunicipality("Porto");
+            extra.setDescription("Página " + i);
+            extra.setRequestedDate(booking.getRequestedDate().plusDays(i));
+            extra.setTimeSlot("09:00-11:00");
+            bookingRepository.save(extra);
+        }
+
+        String cursor = mockMvc.perform(get("/api/bookings").param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].description").value("Teste IT"))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/bookings").param("size", "3").param("after", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].description").value("Página 3"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void FilterBookingsByStatusAndDateRange() throws Exception {
+        Booking cancelled = Booking.newRequest();
+        cancelled.setMunicipality("Lisboa");
+        cancelled.setDescription("Cancelado");
+        cancelled.setRequestedDate(booking.getRequestedDate().plusDays(7));
+        cancelled.setTimeSlot("11:00-13:00");
+        cancelled.addState(BookingState.CANCELADO);
+        bookingRepository.save(cancelled);
+
+        mockMvc.perform(get("/api/bookings").param("status", "CANCELADO"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].description").value("Cancelado"));
+
+        mockMvc.perform(get("/api/bookings")
+                .param("from", booking.getRequestedDate().toString())
+                .param("to", booking.getRequestedDate().plusDays(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].description").value("Teste IT"));
+    }
+
+    @Test
+    void RejectInvalidListParameters() throws Exception {
+        mockMvc.perform(get("/api/bookings").param("size", "1000"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/bookings").param("status", "INVALIDO"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/bookings").param("after", "lixo"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/bookings").param("from", "ontem"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void ExportBookingsAsNdjson() throws Exception {
+        Booking second = new Booking();
+        second.setMunicipality("Porto");
+        second.setDescription("Segundo");
+        second.setRequestedDate(booking.getRequestedDate().plusDays(1));
+        second.setTimeSlot("11:00-13:00");
+        bookingRepository.save(second);
+
+        MvcResult started = mockMvc.perform(get("/api/bookings/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[0]).get("token").asText())
+                .isEqualTo(booking.getToken());
+        assertThat(objectMapper.readTree(lines[1]).get("municipality").asText())
+                .isEqualTo("Porto");
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        while (!body.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        }
+        return body;
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.zeromonos;
+
+import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingChange;
+import com.example.zeromonos.data.BookingChangedEvent;
+import com.example.zeromonos.data.BookingRepository;
+import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.data.ChangeSequence;
+import com.example.zeromonos.service.BookingLedger;
+import com.example.zeromonos.service.BookingStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Limit;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BookingLedgerTest {
+
+    private static final LocalDate DATE = LocalDate.of(2030, 1, 7);
+
+    private BookingRepository repository;
+    private BookingLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(BookingRepository.class);
+        ledger = new BookingLedger(repository, mock(ChangeSequence.class), "");
+    }
+
+    @Test
+    void RebuildCountsExistingBookings() {
+        Booking received = booking("Lisboa", "09:00-11:00");
+        Booking cancelled = booking("Lisboa", "11:00-13:00");
+        cancelled.addState(BookingState.CANCELADO);
+        when(repository.findAll()).thenReturn(List.of(received, cancelled));
+
+        ledger.rebuild();
+
+        assertEquals(2, ledger.countForDay("Lisboa", DATE));
+        assertTrue(ledger.isSlotTaken(DATE, "09:00-11:00"));
+        assertFalse(ledger.isSlotTaken(DATE, "11:00-13:00"));
+        assertEquals(1, ledger.countActive());
+    }
+
+    @Test
+    void TransitionsOnlyAdjustByDifference() {
+        Booking booking = booking("Porto", "13:00-15:00");
+        ledger.apply(BookingChangedEvent.saved(booking));
+        ledger.apply(BookingChangedEvent.saved(booking));
+
+        assertEquals(1, ledger.countForDay("Porto", DATE));
+        assertEquals(1, ledger.countActive());
+
+        booking.addState(BookingState.EM_PROG);
+        ledger.apply(BookingChangedEvent.saved(booking));
+        assertEquals(1, ledger.countActive());
+        assertTrue(ledger.isSlotTaken(DATE, "13:00-15:00"));
+
+        booking.addState(BookingState.CONCLUIDO);
+        ledger.apply(BookingChangedEvent.saved(booking));
+        assertEquals(0, ledger.countActive());
+        assertTrue(ledger.isSlotTaken(DATE, "13:00-15:00"));
+        assertEquals(1, ledger.countForDay("Porto", DATE));
+    }
+
+    @Test
+    void CancellationFreesTimeSlotButKeepsDailyCount() {
+        Booking booking = booking("Braga", "15:00-17:00");
+        ledger.apply(BookingChangedEvent.saved(booking));
+
+        booking.addState(BookingState.CANCELADO);
+        ledger.apply(BookingChangedEvent.saved(booking));
+
+        assertFalse(ledger.isSlotTaken(DATE, "15:00-17:00"));
+        assertEquals(1, ledger.countForDay("Braga", DATE));
+        assertEquals(0, ledger.countActive());
+    }
+
+    @Test
+    void RemovalForgetsBooking() {
+        Booking booking = booking("Faro", "09:00-11:00");
+        ledger.apply(BookingChangedEvent.saved(booking));
+
+        ledger.apply(BookingChangedEvent.removed(booking));
+
+        assertEquals(0, ledger.countForDay("Faro", DATE));
+        assertFalse(ledger.isSlotTaken(DATE, "09:00-11:00"));
+        assertEquals(0, ledger.countActive());
+    }
+
+    @Test
+    void SlotMaskFollowsCreateAndCancel() {
+        Booking first = booking("Lisboa", "09:00-11:00");
+        Booking second = booking("Porto", "13:00-15:00");
+        ledger.apply(BookingChangedEvent.saved(first));
+        ledger.apply(BookingChangedEvent.saved(second));
+        ledger.apply(BookingChangedEvent.saved(booking("Braga", "10:00-12:00")));
+
+        assertEquals(0b00101, ledger.takenSlots(DATE));
+        assertEquals(0, ledger.takenSlots(DATE.plusDays(1)));
+
+        second.addState(BookingState.CANCELADO);
+        ledger.apply(BookingChangedEvent.saved(second));
+        assertEquals(0b00001, ledger.takenSlots(DATE));
+
+        ledger.apply(BookingChangedEvent.removed(first));
+        assertEquals(0, ledger.takenSlots(DATE));
+    }
+
+    @Test
+    void StatsFollowTransitionsPerMunicipality() {
+        Booking lisboa = booking("Lisboa", "09:00-11:00");
+        Booking porto = booking("Porto", "11:00-13:00");
+        ledger.apply(BookingChangedEvent.saved(lisboa));
+        ledger.apply(BookingChangedEvent.saved(porto));
+        ledger.apply(BookingChangedEvent.saved(booking("Lisboa", "13:00-15:00")));
+
+        lisboa.addState(BookingState.EM_PROG);
+        ledger.apply(BookingChangedEvent.saved(lisboa));
+        porto.addState(BookingState.CANCELADO);
+        ledger.apply(BookingChangedEvent.saved(porto));
+
+        BookingStats all = ledger.stats(null);
+        assertEquals(3, all.total());
+        assertEquals(Map.of(BookingState.RECEBIDO, 1L, BookingState.EM_PROG, 1L, BookingState.CANCELADO, 1L),
+                all.byStatus());
+        assertEquals(Map.of(DATE, 2L), all.municipalities().get("Lisboa").byDay());
+
+        BookingStats onlyPorto = ledger.stats("porto");
+        assertEquals(Set.of("Porto"), onlyPorto.municipalities().keySet());
+        assertEquals(Map.of(BookingState.CANCELADO, 1L), onlyPorto.municipalities().get("Porto").byStatus());
+    }
+
+    @Test
+    void RestartReplaysOnlyChangesAfterSnapshot(@TempDir Path dir) {
+        Path snapshot = dir.resolve("ledger.snapshot");
+        ChangeSequence sequence = mock(ChangeSequence.class);
+        Booking kept = booking("Lisboa", "09:00-11:00");
+        Booking changed = booking("Porto", "11:00-13:00");
+        BookingLedger before = new BookingLedger(repository, sequence, snapshot.toString());
+        before.apply(BookingChangedEvent.saved(kept));
+        before.apply(BookingChangedEvent.saved(changed));
+        when(sequence.watermark()).thenReturn(10L);
+        before.saveSnapshot();
+
+        // Depois da fotografia: uma transição e um booking novo, com números acima de 10
+        changed.addState(BookingState.CANCELADO);
+        Booking created = booking("Lisboa", "13:00-15:00");
+        when(sequence.watermark()).thenReturn(12L);
+        when(repository.findChangesAfter(eq(10L), any(), anyLong(), any(Limit.class))).thenReturn(List.of(
+                new BookingChange(BookingChangedEvent.saved(changed).toView(), 11),
+                new BookingChange(BookingChangedEvent.saved(created).toView(), 12)));
+        when(repository.count()).thenReturn(3L);
+
+        BookingLedger after = new BookingLedger(repository, sequence, snapshot.toString());
+        after.start();
+
+        verify(repository, never()).findAll();
+        assertEquals(2, after.countForDay("Lisboa", DATE));
+        assertFalse(after.isSlotTaken(DATE, "11:00-13:00"));
+        assertEquals(0b00101, after.takenSlots(DATE));
+        assertEquals(2, after.countActive());
+    }
+
+    @Test
+    void SnapshotAheadOfDatabaseOrWithDeletedRowsIsRebuilt(@TempDir Path dir) {
+        Path snapshot = dir.resolve("ledger.snapshot");
+        ChangeSequence sequence = mock(ChangeSequence.class);
+        Booking booking = booking("Faro", "09:00-11:00");
+        BookingLedger before = new BookingLedger(repository, sequence, snapshot.toString());
+        before.apply(BookingChangedEvent.saved(booking));
+        when(sequence.watermark()).thenReturn(50L);
+        before.saveSnapshot();
+        when(repository.findAll()).thenReturn(List.of());
+
+        // Base de dados reposta de uma cópia de segurança anterior à fotografia
+        when(sequence.watermark()).thenReturn(20L);
+        BookingLedger restored = new BookingLedger(repository, sequence, snapshot.toString());
+        restored.start();
+        assertEquals(0, restored.countForDay("Faro", DATE));
+
+        // Booking apagado depois da fotografia: o número de linhas não bate certo
+        when(sequence.watermark()).thenReturn(50L);
+        when(repository.count()).thenReturn(0L);
+        BookingLedger deleted = new BookingLedger(repository, sequence, snapshot.toString());
+        deleted.start();
+        assertEquals(0, deleted.countForDay("Faro", DATE));
+        verify(repository, times(2)).findAll();
+    }
+
+    private Booking booking(String municipality, String timeSlot) {
+        Booking b = Booking.newRequest();
+        b.setMunicipality(municipality);
+        b.setDescription("Teste");
+        b.setRequestedDate(DATE);
+        b.setTimeSlot(timeSlot);
+        return b;
+    }
+}
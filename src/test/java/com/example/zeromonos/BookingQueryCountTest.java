@@ -0,0 +1,143 @@
+package com.example.zeromonos;
+
+import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingRepository;
+import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.service.BookingFilter;
+import com.example.zeromonos.service.BookingPage;
+import com.example.zeromonos.service.BookingService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * O número de statements SQL das listagens não pode depender do número de linhas.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BookingQueryCountTest {
+
+    private static final int ROWS = 1_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeAll
+    void seed() {
+        bookingRepository.deleteAll();
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Booking b = Booking.newRequest();
+            b.setMunicipality(i % 2 == 0 ? "Lisboa" : "Porto");
+            b.setDescription("Histórico " + i);
+            b.setRequestedDate(LocalDate.of(2020, 1, 6).plusDays(i));
+            b.setTimeSlot("09:00-11:00");
+            b.addState(BookingState.CANCELADO);
+            bookings.add(b);
+        }
+        bookingRepository.saveAll(bookings);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @BeforeEach
+    void resetStatistics() {
+        statistics.clear();
+    }
+
+    @Test
+    void DefaultListIsASingleProjectionQuery() throws Exception {
+        mockMvc.perform(get("/api/bookings").param("size", "200"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[199].description").exists())
+                .andExpect(jsonPath("$[199].stateHistory").doesNotExist());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void PagedListWithHistoryUsesTheSameStatementsForAnyPageSize() throws Exception {
+        mockMvc.perform(get("/api/bookings").param("include", "history").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[9].stateHistory.length()").value(2));
+        long smallPage = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        mockMvc.perform(get("/api/bookings").param("include", "history").param("size", "200"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[199].stateHistory.length()").value(2));
+        long largePage = statistics.getPrepareStatementCount();
+
+        assertEquals(2, smallPage);
+        assertEquals(smallPage, largePage);
+    }
+
+    @Test
+    void WalkingAllPagesWithHistoryCostsTwoStatementsPerPage() {
+        List<Booking> all = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            BookingPage<Booking> page = bookingService.listBookingsWithHistory(
+                    new BookingFilter(null, null, null, null), cursor, BookingService.MAX_PAGE_SIZE);
+            all.addAll(page.items());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(ROWS, all.size());
+        assertTrue(all.stream().allMatch(b -> b.getStateHistory().size() == 2));
+        assertEquals(2L * pages, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void MunicipalityPageLoadsHistoryInOneExtraStatement() {
+        BookingPage<Booking> lisboa = bookingService.listBookingsWithHistory(
+                new BookingFilter("Lisboa", null, null, null), null, BookingService.MAX_PAGE_SIZE);
+
+        assertEquals(BookingService.MAX_PAGE_SIZE, lisboa.items().size());
+        assertTrue(lisboa.items().stream().allMatch(b -> "Lisboa".equals(b.getMunicipality())));
+        assertTrue(lisboa.items().stream().allMatch(b -> b.getStateHistory().size() == 2));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void HydrationDoesNotTouchHistory() {
+        List<Booking> all = bookingRepository.findAll();
+
+        assertEquals(ROWS, all.size());
+        assertTrue(all.stream().noneMatch(b -> Hibernate.isInitialized(b.getStateHistory())));
+        assertTrue(all.stream().allMatch(b -> b.getToken() != null && b.getStatus() == BookingState.CANCELADO));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
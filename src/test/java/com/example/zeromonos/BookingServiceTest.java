@@ -1,17 +1,31 @@
 package com.example.zeromonos;
 
 import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingChange;
+import com.example.zeromonos.data.BookingChangedEvent;
 import com.example.zeromonos.data.BookingRepository;
 import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.data.BookingTokenGenerator;
+import com.example.zeromonos.data.ChangeSequence;
+import com.example.zeromonos.data.BookingView;
+import com.example.zeromonos.service.AdmissionLocks;
+import com.example.zeromonos.service.BookingBatchResult;
+import com.example.zeromonos.service.BookingFilter;
+import com.example.zeromonos.service.BookingLedger;
+import com.example.zeromonos.service.BookingPage;
 import com.example.zeromonos.service.BookingService;
+import com.example.zeromonos.service.BookingTokenCache;
+import com.example.zeromonos.service.BookingTransitionResult;
 import com.example.zeromonos.service.MunicipioService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -20,6 +34,7 @@ class BookingServiceTest {
 
     private BookingRepository repository;
     private MunicipioService municipioService;
+    private BookingLedger ledger;
     private BookingService bookingService;
 
     private Booking validBooking;
@@ -28,21 +43,21 @@ class BookingServiceTest {
     void setUp() {
         repository = mock(BookingRepository.class);
         municipioService = mock(MunicipioService.class);
-        bookingService = new BookingService(repository, municipioService);
+        ledger = new BookingLedger(repository, mock(ChangeSequence.class), "");
+        bookingService = new BookingService(repository, municipioService, ledger, ledger, new AdmissionLocks(8),
+                new BookingTokenCache(100, Duration.ofMinutes(10)), mock(ChangeSequence.class), BookingTokenGenerator.jdk(), 3);
 
-        validBooking = new Booking();
+        validBooking = Booking.newRequest();
         validBooking.setMunicipality("Lisboa");
         validBooking.setDescription("Limpeza");
         validBooking.setRequestedDate(nextWeekday(5));
         validBooking.setTimeSlot("09:00-11:00");
 
-        when(municipioService.isValidMunicipality("Lisboa")).thenReturn(true);
+        when(municipioService.findCanonicalName("Lisboa")).thenReturn(Optional.of("Lisboa"));
     }
 
     @Test
     void CreateValidBooking() {
-        when(repository.findAll()).thenReturn(List.of());
-        when(repository.findByMunicipality("Lisboa")).thenReturn(List.of());
         when(repository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
         Booking saved = bookingService.createBooking(validBooking);
@@ -53,9 +68,60 @@ class BookingServiceTest {
         verify(repository, times(1)).save(validBooking);
     }
 
+    @Test
+    void IssuesTokenFromConfiguredGenerator() {
+        UUID fixed = UUID.fromString("00000000-0000-4000-8000-000000000001");
+        BookingService service = new BookingService(repository, municipioService, ledger, ledger, new AdmissionLocks(8),
+                new BookingTokenCache(100, Duration.ofMinutes(10)), mock(ChangeSequence.class), () -> fixed, 3);
+        when(repository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        Booking booking = new Booking();
+        booking.setMunicipality("Lisboa");
+        booking.setDescription("Limpeza");
+        booking.setRequestedDate(nextWeekday(5));
+        booking.setTimeSlot("09:00-11:00");
+
+        Booking saved = service.createBooking(booking);
+
+        assertEquals(fixed, saved.getTokenValue());
+        assertEquals(BookingState.RECEBIDO, saved.getStatus());
+    }
+
+    @Test
+    void StatsFilterIsCanonicalized() {
+        validBooking.setMunicipality("Évora");
+        ledger.apply(BookingChangedEvent.saved(validBooking));
+        when(municipioService.findCanonicalName("evora")).thenReturn(Optional.of("Évora"));
+
+        assertEquals(1, bookingService.getStats("evora").total());
+        assertEquals(1, bookingService.getStats(null).total());
+    }
+
+    @Test
+    void BulkTransitionReportsConcurrentChangesPerToken() {
+        UUID applied = UUID.randomUUID();
+        UUID raced = UUID.randomUUID();
+        UUID done = UUID.randomUUID();
+        BookingView appliedView = view(applied, BookingState.RECEBIDO);
+        when(repository.findViewsByTokenIn(any())).thenReturn(List.of(
+                appliedView, view(raced, BookingState.RECEBIDO), view(done, BookingState.CONCLUIDO)));
+        // O segundo mudou de estado entre a leitura e o UPDATE: só o primeiro é alterado
+        when(repository.transitionAll(any(), eq(BookingState.EM_PROG)))
+                .thenReturn(List.of(view(applied, BookingState.EM_PROG)));
+
+        List<BookingTransitionResult> results = bookingService.updateBookingStatuses(List.of(
+                appliedView.token(), view(raced, BookingState.RECEBIDO).token(),
+                view(done, BookingState.CONCLUIDO).token(), "desconhecido"), BookingState.EM_PROG);
+
+        assertEquals(BookingState.EM_PROG, results.get(0).status());
+        assertNull(results.get(0).error());
+        assertTrue(results.get(1).error().contains("alterada entretanto"));
+        assertTrue(results.get(2).error().contains("Transição inválida"));
+        assertTrue(results.get(3).error().contains("não encontrada"));
+    }
+
     @Test
     void RejectBookingIfInvalidMunicipality() {
-        when(municipioService.isValidMunicipality("Lisboa")).thenReturn(false);
+        when(municipioService.findCanonicalName("Lisboa")).thenReturn(Optional.empty());
 
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                 () -> bookingService.createBooking(validBooking));
@@ -64,6 +130,17 @@ class BookingServiceTest {
         verify(repository, never()).save(any());
     }
 
+    @Test
+    void StoreCanonicalMunicipalityName() {
+        validBooking.setMunicipality("LISBOA");
+        when(municipioService.findCanonicalName("LISBOA")).thenReturn(Optional.of("Lisboa"));
+        when(repository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        Booking saved = bookingService.createBooking(validBooking);
+
+        assertEquals("Lisboa", saved.getMunicipality());
+    }
+
     @Test
     void RejectBookingIfDailyLimitReached() {
         List<Booking> existing = List.of(
@@ -73,7 +150,7 @@ class BookingServiceTest {
                 createBookingWithDateAndState(validBooking.getRequestedDate(), BookingState.RECEBIDO),
                 createBookingWithDateAndState(validBooking.getRequestedDate(), BookingState.RECEBIDO)
         );
-        when(repository.findByMunicipality("Lisboa")).thenReturn(existing);
+        record(existing);
 
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                 () -> bookingService.createBooking(validBooking));
@@ -84,7 +161,7 @@ class BookingServiceTest {
     void RejectBookingIfTimeSlotConflict() {
         Booking conflictBooking = createBookingWithDateAndState(validBooking.getRequestedDate(), BookingState.RECEBIDO);
         conflictBooking.setTimeSlot(validBooking.getTimeSlot());
-        when(repository.findAll()).thenReturn(List.of(conflictBooking));
+        record(List.of(conflictBooking));
 
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                 () -> bookingService.createBooking(validBooking));
@@ -98,66 +175,110 @@ class BookingServiceTest {
                 createBookingWithDateAndStateAndTimeSlot(nextWeekday(5), BookingState.EM_PROG,"10:00-11:00"),
                 createBookingWithDateAndStateAndTimeSlot(nextWeekday(6), BookingState.RECEBIDO,"11:00-12:00")
         );
-        when(repository.findAll()).thenReturn(activeBookings);
+        record(activeBookings);
 
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                 () -> bookingService.createBooking(validBooking));
         assertEquals("O cidadão já atingiu o limite de reservas ativas.", ex.getMessage());
     }
 
+    @Test
+    void BatchAppliesAdmissionRulesWithinTheBatch() {
+        Booking sameSlot = createBookingWithDateAndStateAndTimeSlot(validBooking.getRequestedDate(), BookingState.RECEBIDO,
+                validBooking.getTimeSlot());
+        Booking second = createBookingWithDateAndStateAndTimeSlot(nextWeekday(6), BookingState.RECEBIDO, "11:00-13:00");
+        Booking third = createBookingWithDateAndStateAndTimeSlot(nextWeekday(7), BookingState.RECEBIDO, "13:00-15:00");
+        Booking fourth = createBookingWithDateAndStateAndTimeSlot(nextWeekday(8), BookingState.RECEBIDO, "15:00-17:00");
+        Booking invalid = createBookingWithDateAndStateAndTimeSlot(nextWeekday(9), BookingState.RECEBIDO, "11:00-13:00");
+        invalid.setDescription("A");
+
+        List<BookingBatchResult> results = bookingService.createBookings(
+                List.of(validBooking, sameSlot, second, invalid, third, fourth));
+
+        assertNotNull(results.get(0).token());
+        assertEquals("Não é possível reservar dois serviços no mesmo horário.", results.get(1).error());
+        assertNotNull(results.get(2).token());
+        assertEquals("Descrição inválida — demasiado curta", results.get(3).error());
+        assertNotNull(results.get(4).token());
+        assertEquals("O cidadão já atingiu o limite de reservas ativas.", results.get(5).error());
+        verify(repository, times(1)).saveAll(List.of(validBooking, second, third));
+    }
+
+    @Test
+    void RejectEmptyBatch() {
+        assertThrows(IllegalArgumentException.class, () -> bookingService.createBookings(List.of()));
+    }
+
     @Test
     void HandleAllStateTransitions() {
-        validBooking.addState(BookingState.RECEBIDO);
-        when(repository.findByToken(validBooking.getToken())).thenReturn(Optional.of(validBooking));
-        when(repository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(repository.transition(validBooking.getTokenValue(), BookingState.EM_PROG))
+                .thenReturn(Optional.of(viewWithStatus(BookingState.EM_PROG)));
+        when(repository.transition(validBooking.getTokenValue(), BookingState.CONCLUIDO))
+                .thenReturn(Optional.of(viewWithStatus(BookingState.CONCLUIDO)));
 
-        Booking updated1 = bookingService.updateBookingStatus(validBooking.getToken(), BookingState.EM_PROG);
-        assertEquals(BookingState.EM_PROG, updated1.getStatus());
+        BookingView updated1 = bookingService.updateBookingStatus(validBooking.getToken(), BookingState.EM_PROG);
+        assertEquals(BookingState.EM_PROG, updated1.status());
 
-        when(repository.findByToken(validBooking.getToken())).thenReturn(Optional.of(updated1));
-        Booking updated2 = bookingService.updateBookingStatus(validBooking.getToken(), BookingState.CONCLUIDO);
-        assertEquals(BookingState.CONCLUIDO, updated2.getStatus());
+        BookingView updated2 = bookingService.updateBookingStatus(validBooking.getToken(), BookingState.CONCLUIDO);
+        assertEquals(BookingState.CONCLUIDO, updated2.status());
 
-        when(repository.findByToken(validBooking.getToken())).thenReturn(Optional.of(updated2));
+        when(repository.findViewByToken(validBooking.getTokenValue()))
+                .thenReturn(Optional.of(viewWithStatus(BookingState.CONCLUIDO)));
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                 () -> bookingService.updateBookingStatus(validBooking.getToken(), BookingState.RECEBIDO));
         assertTrue(ex.getMessage().contains("Transição inválida"));
     }
 
     @Test
-    void GetBookingsByMunicipalityShouldReturnList() {
-        when(repository.findByMunicipality("Lisboa")).thenReturn(List.of(validBooking));
+    void RejectTransitionForUnknownToken() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> bookingService.updateBookingStatus(validBooking.getToken(), BookingState.EM_PROG));
 
-        List<Booking> result = bookingService.getBookingsByMunicipality("Lisboa");
+        assertEquals("Reserva não encontrada para o token fornecido.", ex.getMessage());
+    }
 
-        assertEquals(1, result.size());
-        assertEquals("Lisboa", result.get(0).getMunicipality());
+    @Test
+    void ListBookingsByMunicipalityShouldReturnPage() {
+        BookingView lisboa = view(UUID.randomUUID(), BookingState.RECEBIDO);
+        when(municipioService.findCanonicalName("lisboa")).thenReturn(Optional.of("Lisboa"));
+        when(repository.findViews(any(), any(), anyInt())).thenReturn(List.of(lisboa));
+
+        BookingPage<BookingView> result = bookingService.listBookings(
+                new BookingFilter("lisboa", null, null, null), null, 10);
+
+        assertEquals(List.of(lisboa), result.items());
+        assertNull(result.nextCursor());
+        verify(municipioService).findCanonicalName("lisboa");
+        verify(repository).findViews(any(), any(), eq(11));
     }
 
     @Test
-    void GetBookingsByMunicipalityShouldReturnEmptyList() {
-        when(repository.findByMunicipality("Porto")).thenReturn(List.of());
+    void ListBookingsByMunicipalityShouldReturnEmptyPage() {
+        when(municipioService.findCanonicalName("Porto")).thenReturn(Optional.of("Porto"));
+        when(repository.findViews(any(), any(), anyInt())).thenReturn(List.of());
 
-        List<Booking> result = bookingService.getBookingsByMunicipality("Porto");
+        BookingPage<BookingView> result = bookingService.listBookings(
+                new BookingFilter("Porto", null, null, null), null, 10);
 
-        assertTrue(result.isEmpty());
+        assertTrue(result.items().isEmpty());
+        assertNull(result.nextCursor());
     }
 
     @Test
     void ShouldPreventTransitionFromConcluidoToAnyOther() {
-        validBooking.addState(BookingState.CONCLUIDO);
-        when(repository.findByToken(validBooking.getToken())).thenReturn(Optional.of(validBooking));
+        when(repository.findViewByToken(validBooking.getTokenValue()))
+                .thenReturn(Optional.of(viewWithStatus(BookingState.CONCLUIDO)));
 
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                 () -> bookingService.updateBookingStatus(validBooking.getToken(), BookingState.EM_PROG));
 
         assertTrue(ex.getMessage().contains("Transição inválida"));
+        verify(repository, never()).save(any());
     }
 
     @Test
     void RejectBookingIfDescriptionTooShort() {
         validBooking.setDescription("A");
-        when(repository.findAll()).thenReturn(List.of());
 
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                 () -> bookingService.createBooking(validBooking));
@@ -165,12 +286,33 @@ class BookingServiceTest {
         assertTrue(ex.getMessage().contains("Descrição inválida"));
     }
 
+    @Test
+    void RepeatedTokenLookupIsServedFromCache() {
+        BookingView view = BookingChangedEvent.saved(validBooking).toView();
+        when(repository.findChangeByToken(validBooking.getTokenValue())).thenReturn(Optional.of(new BookingChange(view, 1)));
+
+        bookingService.getBookingViewByToken(validBooking.getToken());
+        Optional<BookingView> second = bookingService.getBookingViewByToken(validBooking.getToken());
+
+        assertEquals(Optional.of(view), second);
+        verify(repository, times(1)).findChangeByToken(validBooking.getTokenValue());
+    }
+
     // ------------------------------
     // Métodos auxiliares
     // ------------------------------
 
+    private BookingView viewWithStatus(BookingState status) {
+        return new BookingView(validBooking.getToken(), validBooking.getMunicipality(), validBooking.getDescription(),
+                validBooking.getRequestedDate(), validBooking.getTimeSlot(), status, null);
+    }
+
+    private void record(List<Booking> bookings) {
+        bookings.forEach(b -> ledger.apply(BookingChangedEvent.saved(b)));
+    }
+
     private Booking createBookingWithDateAndState(LocalDate date, BookingState state) {
-        Booking b = new Booking();
+        Booking b = Booking.newRequest();
         b.setRequestedDate(date);
         b.setTimeSlot("09:00-11:00");
         b.setDescription("Teste");
@@ -180,7 +322,7 @@ class BookingServiceTest {
     }
 
     private Booking createBookingWithDateAndStateAndTimeSlot(LocalDate date, BookingState state, String timeSlot) {
-        Booking b = new Booking();
+        Booking b = Booking.newRequest();
         b.setRequestedDate(date);
         b.setTimeSlot(timeSlot);
         b.setDescription("Teste");
@@ -196,4 +338,9 @@ class BookingServiceTest {
         }
         return date;
     }
-}
\ No newline at end of file
+
+    private static BookingView view(UUID token, BookingState status) {
+        return new BookingView(token, "Lisboa", "Limpeza", LocalDate.of(2030, 1, 7), "09:00-11:00", status,
+                UUID.nameUUIDFromBytes(token.toString().getBytes()));
+    }
+}
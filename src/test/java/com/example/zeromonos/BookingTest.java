@@ -18,7 +18,7 @@ public class BookingTest {
 
     @Test
     void InitializeWithReceivedStateAndToken() {
-        Booking booking = new Booking();
+        Booking booking = Booking.newRequest();
 
         assertNotNull(booking.getToken(), "O token não deve ser nulo");
         assertEquals(BookingState.RECEBIDO, booking.getStatus());
@@ -26,8 +26,28 @@ public class BookingTest {
     }
 
     @Test
-    void AddMultipleStatesShouldKeepOrder() {
+    void NoArgConstructorDoesNotGenerateTokenOrHistory() {
         Booking booking = new Booking();
+
+        assertNull(booking.getToken());
+        assertNull(booking.getStatus());
+        assertTrue(booking.getStateHistory().isEmpty());
+    }
+
+    @Test
+    void InitializeRequestIsIdempotent() {
+        Booking booking = Booking.newRequest();
+        String token = booking.getToken();
+
+        booking.initializeRequest();
+
+        assertEquals(token, booking.getToken());
+        assertEquals(1, booking.getStateHistory().size());
+    }
+
+    @Test
+    void AddMultipleStatesShouldKeepOrder() {
+        Booking booking = Booking.newRequest();
         booking.addState(BookingState.EM_PROG);
         booking.addState(BookingState.CONCLUIDO);
 
@@ -61,7 +81,7 @@ public class BookingTest {
 
     @Test
     void AddNewStateAndKeepHistory() {
-        Booking booking = new Booking();
+        Booking booking = Booking.newRequest();
         booking.addState(BookingState.EM_PROG);
 
         assertEquals(BookingState.EM_PROG, booking.getStatus());
@@ -71,7 +91,7 @@ public class BookingTest {
 
     @Test
     void AddingSameStateTwiceDoesNotDuplicate() {
-        Booking booking = new Booking();
+        Booking booking = Booking.newRequest();
         booking.addState(BookingState.RECEBIDO);
         assertEquals(1, booking.getStateHistory().size(), "Não deve duplicar o estado inicial");
     }
@@ -144,7 +164,7 @@ public class BookingTest {
     void EachBookingHasUniqueToken() {
         Set<String> tokens = new HashSet<>();
         for (int i = 0; i < 50; i++) {
-            Booking booking = new Booking();
+            Booking booking = Booking.newRequest();
             assertTrue(tokens.add(booking.getToken()), "Token duplicado encontrado!");
         }
     }
@@ -158,7 +178,7 @@ public class BookingTest {
 
     @Test
     void HistoryShouldContainTimestampsInOrder() {
-        Booking booking = new Booking();
+        Booking booking = Booking.newRequest();
         booking.addState(BookingState.EM_PROG);
         booking.addState(BookingState.CONCLUIDO);
 
@@ -167,6 +187,18 @@ public class BookingTest {
                 || history.get(0).getTimestamp().equals(history.get(1).getTimestamp()));
     }
 
+    @Test
+    void TransitionTableMatchesAllowedOrigins() {
+        assertTrue(BookingState.RECEBIDO.canTransitionTo(BookingState.EM_PROG));
+        assertTrue(BookingState.EM_PROG.canTransitionTo(BookingState.CANCELADO));
+        assertFalse(BookingState.CONCLUIDO.canTransitionTo(BookingState.CANCELADO));
+        assertFalse(BookingState.EM_PROG.canTransitionTo(BookingState.RECEBIDO));
+
+        assertEquals(Set.of(BookingState.RECEBIDO, BookingState.EM_PROG), BookingState.allowedFrom(BookingState.CANCELADO));
+        assertEquals(Set.of(BookingState.EM_PROG), BookingState.allowedFrom(BookingState.CONCLUIDO));
+        assertTrue(BookingState.allowedFrom(BookingState.RECEBIDO).isEmpty());
+    }
+
     @RepeatedTest(3)
     void ValidateMultipleValidBookings() {
         Booking booking = validBooking();
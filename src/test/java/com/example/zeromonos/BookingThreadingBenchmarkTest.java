@@ -0,0 +1,213 @@
+package com.example.zeromonos;
+
+import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.data.BookingTokenGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Débito e p99 de GET /api/bookings com 1000 clientes em simultâneo, com o Tomcat em threads de
+ * plataforma e em threads virtuais (spring.threads.virtual.enabled); e, com threads virtuais, o custo
+ * dos geradores de tokens quando cada pedido corre numa thread nova. Só corre em Java 21+:
+ * mvn test -Pbenchmark -Dtest=BookingThreadingBenchmarkTest
+ * (clientes e pedidos por cliente com -Dbenchmark.clients=1000 -Dbenchmark.requests=20).
+ */
+@Tag("benchmark")
+@EnabledIf("supportsVirtualThreads")
+class BookingThreadingBenchmarkTest {
+
+    private static final String[] MUNICIPIOS = {"Lisboa", "Porto", "Coimbra", "Braga", "Faro"};
+    private static final String[] SLOTS = {"09:00-11:00", "11:00-13:00", "13:00-15:00", "15:00-17:00", "17:00-19:00"};
+    private static final int ROWS = 2_000;
+
+    private final int clients = Integer.getInteger("benchmark.clients", 1_000);
+    private final int requests = Integer.getInteger("benchmark.requests", 20);
+
+    static boolean supportsVirtualThreads() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    @Test
+    void virtualThreadsAgainstPlatformThreads() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        for (Result result : List.of(platform, virtual)) {
+            System.out.printf("%-8s clientes=%d  pedidos=%,d  débito=%,.0f req/s  p50=%.1fms  p99=%.1fms  erros=%d%n",
+                    result.mode(), clients, result.latencies().length, result.throughput(),
+                    result.percentile(50), result.percentile(99), result.errors());
+        }
+
+        assertThat(platform.errors()).isZero();
+        assertThat(virtual.errors()).isZero();
+    }
+
+    // Um token por tarefa no executor da aplicação, que com threads virtuais cria uma thread por tarefa,
+    // tal como o Tomcat faz por pedido. O gerador thread-local é o anterior, só para comparação.
+    @Test
+    void tokenGeneratorsOnVirtualThreads() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ZeromonosApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=true",
+                        "spring.datasource.url=jdbc:h2:mem:threading-tokens",
+                        "municipios.refresh-initial-delay=PT1H",
+                        "logging.level.com.example.zeromonos=WARN")
+                .run()) {
+            AsyncTaskExecutor executor = context.getBean("applicationTaskExecutor", AsyncTaskExecutor.class);
+            ThreadLocal<SecureRandom> perThread = ThreadLocal.withInitial(() -> {
+                try {
+                    return SecureRandom.getInstance("DRBG");
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            Map<String, BookingTokenGenerator> generators = new LinkedHashMap<>();
+            generators.put("configurado", context.getBean(BookingTokenGenerator.class));
+            generators.put("jdk", BookingTokenGenerator.jdk());
+            generators.put("thread-local", () -> {
+                byte[] bytes = new byte[16];
+                perThread.get().nextBytes(bytes);
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                return new UUID(buffer.getLong(), buffer.getLong());
+            });
+
+            int tokens = clients * requests;
+            for (Map.Entry<String, BookingTokenGenerator> generator : generators.entrySet()) {
+                // Aquecimento do JIT, fora da medição
+                generate(executor, generator.getValue(), tokens / 10);
+                long begin = System.nanoTime();
+                int generated = generate(executor, generator.getValue(), tokens);
+                double seconds = (System.nanoTime() - begin) / 1e9;
+                System.out.printf("%-12s tokens=%,d  débito=%,.0f tokens/s%n", generator.getKey(), generated, generated / seconds);
+
+                assertThat(generated).isEqualTo(tokens);
+            }
+        }
+    }
+
+    private static int generate(AsyncTaskExecutor executor, BookingTokenGenerator generator, int tokens) throws Exception {
+        Set<UUID> seen = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(tokens);
+        for (int i = 0; i < tokens; i++) {
+            executor.execute(() -> {
+                seen.add(generator.next());
+                done.countDown();
+            });
+        }
+        done.await();
+        return seen.size();
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ZeromonosApplication.class)
+                .properties(
+                        "server.port=0",
+                        "server.tomcat.accept-count=" + clients,
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.datasource.url=jdbc:h2:mem:threading-" + mode,
+                        "municipios.refresh-initial-delay=PT1H",
+                        "logging.level.com.example.zeromonos=WARN")
+                .run()) {
+            seed(context.getBean(JdbcTemplate.class));
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            URI uri = URI.create("http://localhost:" + port + "/api/bookings?size=50&municipality=Lisboa");
+            HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            // Aquecimento do JIT e das ligações, fora da medição
+            for (int i = 0; i < 500; i++) {
+                http.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding());
+            }
+
+            long[] latencies = new long[clients * requests];
+            AtomicInteger errors = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>(clients);
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                        for (int r = 0; r < requests; r++) {
+                            long begin = System.nanoTime();
+                            HttpResponse<Void> response = http.send(HttpRequest.newBuilder(uri).build(),
+                                    HttpResponse.BodyHandlers.discarding());
+                            latencies[client * requests + r] = System.nanoTime() - begin;
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            return new Result(mode, latencies, latencies.length / seconds, errors.get());
+        }
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        LocalDate base = LocalDate.of(2030, 1, 7);
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new Object[]{
+                    UUID.randomUUID(),
+                    MUNICIPIOS[i % MUNICIPIOS.length],
+                    "Carga " + i,
+                    Date.valueOf(base.plusDays(i / 25)),
+                    SLOTS[i % SLOTS.length],
+                    UUID.randomUUID(),
+                    BookingState.RECEBIDO.name()
+            });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO booking (id, municipality, description, requested_date, time_slot, token, status) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private record Result(String mode, long[] latencies, double throughput, int errors) {
+
+        double percentile(int p) {
+            long[] sorted = Arrays.copyOf(latencies, latencies.length);
+            Arrays.sort(sorted);
+            return sorted[Math.min(sorted.length - 1, sorted.length * p / 100)] / 1e6;
+        }
+    }
+}
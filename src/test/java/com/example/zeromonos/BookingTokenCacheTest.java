@@ -0,0 +1,212 @@
+package com.example.zeromonos;
+
+import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingChange;
+import com.example.zeromonos.data.BookingChangedEvent;
+import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.data.BookingView;
+import com.example.zeromonos.service.BookingCacheStats;
+import com.example.zeromonos.service.BookingTokenCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingTokenCacheTest {
+
+    private MutableClock clock;
+    private BookingTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2030-01-07T09:00:00Z"));
+        cache = new BookingTokenCache(2, Duration.ofMinutes(10), clock);
+    }
+
+    @Test
+    void SavedBookingIsServedFromCache() {
+        Booking booking = booking("Lisboa");
+        cache.apply(BookingChangedEvent.saved(booking));
+
+        BookingView view = cache.get(booking.getToken()).orElseThrow();
+
+        assertEquals("Lisboa", view.municipality());
+        assertEquals(BookingState.RECEBIDO, view.status());
+        assertEquals(1, cache.getStats().hits());
+    }
+
+    @Test
+    void StatusChangeReplacesCachedEntry() {
+        Booking booking = booking("Porto");
+        cache.apply(BookingChangedEvent.saved(booking));
+
+        booking.addState(BookingState.CANCELADO);
+        cache.apply(BookingChangedEvent.saved(booking));
+
+        assertEquals(BookingState.CANCELADO, cache.get(booking.getToken()).orElseThrow().status());
+    }
+
+    @Test
+    void LoadDoesNotOverrideNewerWrite() {
+        Booking booking = booking("Braga");
+        BookingView stale = BookingChangedEvent.saved(booking).toView();
+        booking.addState(BookingState.EM_PROG);
+        cache.apply(saved(booking, 2));
+
+        cache.load(new BookingChange(stale, 1));
+
+        assertEquals(BookingState.EM_PROG, cache.get(booking.getToken()).orElseThrow().status());
+    }
+
+    @Test
+    void LoadOlderThanAnEvictedWriteIsIgnored() {
+        Booking booking = booking("Setúbal");
+        BookingView stale = BookingChangedEvent.saved(booking).toView();
+        booking.addState(BookingState.EM_PROG);
+        cache.apply(saved(booking, 2));
+        cache.apply(saved(booking("Lisboa"), 3));
+        cache.apply(saved(booking("Porto"), 4));
+        assertEquals(1, cache.getStats().evictions());
+
+        // Leitura que começou antes da gravação e só chega depois de a entrada ter sido despejada
+        cache.load(new BookingChange(stale, 1));
+        assertTrue(cache.get(booking.getToken()).isEmpty());
+
+        cache.load(new BookingChange(BookingChangedEvent.saved(booking).toView(), 2));
+        assertEquals(BookingState.EM_PROG, cache.get(booking.getToken()).orElseThrow().status());
+    }
+
+    @Test
+    void LoadDoesNotBringBackARemovedBooking() {
+        Booking booking = booking("Beja");
+        BookingView view = BookingChangedEvent.saved(booking).toView();
+        cache.apply(saved(booking, 5));
+
+        cache.invalidate(booking.getToken(), 5);
+        cache.load(new BookingChange(view, 5));
+
+        assertTrue(cache.get(booking.getToken()).isEmpty());
+        assertEquals(0, cache.getStats().size());
+    }
+
+    @Test
+    void RemovalInvalidatesEntry() {
+        Booking booking = booking("Faro");
+        cache.apply(BookingChangedEvent.saved(booking));
+
+        cache.apply(BookingChangedEvent.removed(booking));
+
+        assertTrue(cache.get(booking.getToken()).isEmpty());
+    }
+
+    @Test
+    void LeastRecentlyUsedEntryIsEvictedWhenFull() {
+        Booking first = booking("Lisboa");
+        Booking second = booking("Porto");
+        Booking third = booking("Coimbra");
+        cache.apply(BookingChangedEvent.saved(first));
+        cache.apply(BookingChangedEvent.saved(second));
+        cache.get(first.getToken());
+
+        cache.apply(BookingChangedEvent.saved(third));
+
+        assertTrue(cache.get(first.getToken()).isPresent());
+        assertTrue(cache.get(second.getToken()).isEmpty());
+        assertEquals(1, cache.getStats().evictions());
+        assertEquals(2, cache.getStats().size());
+    }
+
+    @Test
+    void EvictionFreesASlackOfTenPercent() {
+        BookingTokenCache larger = new BookingTokenCache(10, Duration.ofMinutes(10), clock);
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            Booking booking = booking("Lisboa");
+            larger.apply(BookingChangedEvent.saved(booking));
+            bookings.add(booking);
+        }
+
+        assertEquals(9, larger.getStats().size());
+        assertEquals(2, larger.getStats().evictions());
+        assertTrue(larger.get(bookings.get(0).getToken()).isEmpty());
+        assertTrue(larger.get(bookings.get(1).getToken()).isEmpty());
+        assertTrue(larger.get(bookings.get(10).getToken()).isPresent());
+    }
+
+    @Test
+    void EntriesExpireAfterTtl() {
+        Booking booking = booking("Aveiro");
+        cache.apply(BookingChangedEvent.saved(booking));
+
+        clock.advance(Duration.ofMinutes(11));
+
+        assertTrue(cache.get(booking.getToken()).isEmpty());
+        BookingCacheStats stats = cache.getStats();
+        assertEquals(1, stats.expirations());
+        assertEquals(0, stats.size());
+    }
+
+    @Test
+    void HitRatioCountsHitsAndMisses() {
+        Booking booking = booking("Viseu");
+        cache.apply(BookingChangedEvent.saved(booking));
+
+        cache.get(booking.getToken());
+        cache.get(booking.getToken());
+        cache.get(booking.getToken());
+        cache.get("desconhecido");
+
+        assertEquals(0.75, cache.getStats().hitRatio(), 1e-9);
+    }
+
+    // Booking.changeSeq só é atribuído pelo listener de JPA
+    private static BookingChangedEvent saved(Booking booking, long changeSeq) {
+        return BookingChangedEvent.saved(BookingChangedEvent.saved(booking).toView(), changeSeq);
+    }
+
+    private Booking booking(String municipality) {
+        Booking b = Booking.newRequest();
+        b.setMunicipality(municipality);
+        b.setDescription("Teste");
+        b.setRequestedDate(LocalDate.of(2030, 1, 7));
+        b.setTimeSlot("09:00-11:00");
+        return b;
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.zeromonos;
+
+import com.example.zeromonos.data.BookingTokenGenerator;
+import com.example.zeromonos.data.BookingTokens;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingTokensTest {
+
+    @Test
+    void FormatIsShortUrlSafeAndReversible() {
+        for (int i = 0; i < 1_000; i++) {
+            UUID token = UUID.randomUUID();
+
+            String formatted = BookingTokens.format(token);
+
+            assertEquals(BookingTokens.LENGTH, formatted.length());
+            assertTrue(formatted.matches("[0-9A-Za-z]+"));
+            assertEquals(Optional.of(token), BookingTokens.parse(formatted));
+        }
+    }
+
+    @Test
+    void FormatCoversExtremeValues() {
+        UUID zero = new UUID(0, 0);
+        UUID max = new UUID(-1L, -1L);
+
+        assertEquals("0000000000000000000000", BookingTokens.format(zero));
+        assertEquals(Optional.of(zero), BookingTokens.parse(BookingTokens.format(zero)));
+        assertEquals(Optional.of(max), BookingTokens.parse(BookingTokens.format(max)));
+    }
+
+    @Test
+    void LegacyUuidTokensAreStillAccepted() {
+        UUID token = UUID.randomUUID();
+
+        assertEquals(Optional.of(token), BookingTokens.parse(token.toString()));
+    }
+
+    @Test
+    void InvalidTokensAreRejected() {
+        assertTrue(BookingTokens.parse(null).isEmpty());
+        assertTrue(BookingTokens.parse("").isEmpty());
+        assertTrue(BookingTokens.parse("curto").isEmpty());
+        assertTrue(BookingTokens.parse("000000000000000000000-").isEmpty());
+        // Maior do que 2^128
+        assertTrue(BookingTokens.parse("zzzzzzzzzzzzzzzzzzzzzz").isEmpty());
+        assertTrue(BookingTokens.parse("xxxxxxxx-xxxx-xxxx-xxxx-xxxxxxxxxxxx").isEmpty());
+    }
+
+    @Test
+    void DrbgGeneratorProducesVersion4Uuids() {
+        BookingTokenGenerator generator = BookingTokenGenerator.drbg();
+        Set<UUID> seen = new HashSet<>();
+
+        for (int i = 0; i < 10_000; i++) {
+            UUID token = generator.next();
+            assertEquals(4, token.version());
+            assertEquals(2, token.variant());
+            assertTrue(seen.add(token));
+        }
+    }
+
+    @Test
+    void DrbgGeneratorIsSharedAcrossThreads() throws Exception {
+        BookingTokenGenerator generator = BookingTokenGenerator.drbg();
+        Set<UUID> seen = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    seen.add(generator.next());
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(16_000, seen.size());
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.zeromonos;
+
+import com.example.zeromonos.service.CircuitBreaker;
+import com.example.zeromonos.service.MunicipioService;
+import com.example.zeromonos.service.WebClientMunicipioClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cliente de municípios contra um geoapi.pt simulado localmente: latência, falhas e pedidos em simultâneo.
+ */
+class MunicipioResilienceTest {
+
+    private static final String CATALOG = "[\"Lisboa\",\"Porto\",\"Nova Terra\"]";
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile Handler handler;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/municipios", exchange -> {
+            calls.incrementAndGet();
+            try {
+                handler.handle(exchange);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void SlowUpstreamTimesOutAndKeepsCatalog() {
+        CountDownLatch release = new CountDownLatch(1);
+        handler = exchange -> {
+            release.await(10, TimeUnit.SECONDS);
+            respond(exchange, 200, CATALOG);
+        };
+        MunicipioService service = newService(Duration.ofMinutes(5), 3, Duration.ofMinutes(1));
+
+        long begin = System.nanoTime();
+        service.refresh();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        release.countDown();
+
+        assertTrue(elapsed < 2_000, "refresh demorou " + elapsed + "ms");
+        assertEquals(1, service.getCacheStats().refreshFailures());
+        assertEquals(308, service.getMunicipios().size());
+    }
+
+    @Test
+    void ConcurrentMissesShareOneUpstreamCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        handler = exchange -> {
+            release.await(10, TimeUnit.SECONDS);
+            respond(exchange, 200, CATALOG);
+        };
+        MunicipioService service = newService(Duration.ZERO, 3, Duration.ofMinutes(1));
+
+        // Nenhum pedido espera pela chamada remota: todos respondem já com o catálogo atual
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Thread thread = new Thread(() -> assertTrue(service.findCanonicalName("Nova Terra").isEmpty()));
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(49, service.getCacheStats().coalescedRefreshes());
+        release.countDown();
+
+        awaitTrue(() -> service.findCanonicalName("nova terra").isPresent());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void BreakerOpensOnOutageAndClosesAfterRecovery() throws Exception {
+        handler = exchange -> respond(exchange, 503, "{}");
+        MunicipioService service = newService(Duration.ZERO, 2, Duration.ofMillis(300));
+
+        service.refresh();
+        service.refresh();
+        assertEquals(CircuitBreaker.State.OPEN, service.getCacheStats().circuitState());
+
+        // Aberto: nenhuma chamada chega ao serviço remoto e continua a valer o catálogo em cache
+        service.refresh();
+        service.findCanonicalName("Nova Terra");
+        assertEquals(2, calls.get());
+        assertEquals(2, service.getCacheStats().rejectedRefreshes());
+        assertTrue(service.isValidMunicipality("Lisboa"));
+
+        handler = exchange -> respond(exchange, 200, CATALOG);
+        Thread.sleep(350);
+        service.refresh();
+
+        assertEquals(3, calls.get());
+        assertEquals(CircuitBreaker.State.CLOSED, service.getCacheStats().circuitState());
+        assertEquals(3, service.getMunicipios().size());
+    }
+
+    private MunicipioService newService(Duration missRefreshInterval, int failureThreshold, Duration openDuration) {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/municipios";
+        WebClientMunicipioClient client = new WebClientMunicipioClient(WebClient.builder(), url,
+                Duration.ofSeconds(2), Duration.ofMillis(500));
+        MunicipioService service = new MunicipioService(client, new ObjectMapper(),
+                tempDir.resolve("snapshot.json").toString(), missRefreshInterval,
+                new CircuitBreaker(failureThreshold, openDuration, Clock.systemUTC()));
+        service.loadSnapshot();
+        return service;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private interface Handler {
+
+        void handle(HttpExchange exchange) throws IOException, InterruptedException;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.zeromonos;
+
+import com.example.zeromonos.service.CircuitBreaker;
+import com.example.zeromonos.service.MunicipioCacheStats;
+import com.example.zeromonos.service.MunicipioClient;
+import com.example.zeromonos.service.MunicipioService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Files;
+import java.net.ConnectException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MunicipioServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private MunicipioClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        client = mock(MunicipioClient.class);
+        when(client.source()).thenReturn("https://geoapi.pt/municipios");
+    }
+
+    @Test
+    void StartsFromBundledSnapshotWithoutNetwork() {
+        MunicipioService service = newService(tempDir.resolve("snapshot.json"));
+
+        assertTrue(service.isValidMunicipality("Lisboa"));
+        assertEquals(308, service.getMunicipios().size());
+        verifyNoInteractions(client);
+    }
+
+    @Test
+    void PrefersLastKnownSnapshotOverBundled() throws Exception {
+        Path snapshot = tempDir.resolve("snapshot.json");
+        Files.writeString(snapshot, "[\"Lisboa\",\"Porto\"]");
+
+        MunicipioService service = newService(snapshot);
+
+        assertEquals(2, service.getMunicipios().size());
+        assertEquals(snapshot.toString(), service.getCacheStats().source());
+    }
+
+    @Test
+    void RefreshReplacesCatalogAndWritesSnapshot() throws Exception {
+        Path snapshot = tempDir.resolve("snapshot.json");
+        when(client.fetchMunicipios()).thenReturn(Mono.just(List.of("Lisboa", "Coimbra")));
+        MunicipioService service = newService(snapshot);
+
+        service.refresh();
+
+        assertEquals(2, service.getMunicipios().size());
+        assertTrue(Files.readString(snapshot).contains("Coimbra"));
+    }
+
+    @Test
+    void FailedRefreshKeepsCurrentCatalog() {
+        when(client.fetchMunicipios()).thenReturn(Mono.error(new ResourceAccessException("timeout")));
+        MunicipioService service = newService(tempDir.resolve("snapshot.json"));
+
+        service.refresh();
+
+        assertTrue(service.isValidMunicipality("Porto"));
+        assertEquals(1, service.getCacheStats().refreshFailures());
+    }
+
+    @Test
+    void FailedReactiveRefreshKeepsCurrentCatalog() {
+        when(client.fetchMunicipios()).thenReturn(Mono.error(new WebClientRequestException(
+                new ConnectException("recusada"), HttpMethod.GET,
+                URI.create("https://geoapi.pt/municipios"), new HttpHeaders())));
+        MunicipioService service = newService(tempDir.resolve("snapshot.json"));
+
+        service.refresh();
+
+        assertTrue(service.isValidMunicipality("Porto"));
+        assertEquals(1, service.getCacheStats().refreshFailures());
+    }
+
+    @Test
+    void MatchesIgnoringCaseAndAccents() {
+        MunicipioService service = newService(tempDir.resolve("snapshot.json"));
+
+        assertEquals(Optional.of("Coimbra"), service.findCanonicalName("COIMBRA"));
+        assertEquals(Optional.of("Coimbra"), service.findCanonicalName(" coimbra "));
+        assertEquals(Optional.of("Évora"), service.findCanonicalName("evora"));
+        assertEquals(Optional.of("Vila Nova de Foz Côa"), service.findCanonicalName("vila nova de  foz coa"));
+        assertTrue(service.findCanonicalName("Atlantis").isEmpty());
+        assertTrue(service.findCanonicalName(null).isEmpty());
+    }
+
+    @Test
+    void CountsCacheHitsAndUnknownNames() {
+        MunicipioService service = newService(tempDir.resolve("snapshot.json"));
+
+        service.getMunicipios();
+        service.isValidMunicipality("Lisboa");
+        service.isValidMunicipality("Atlantis");
+        service.findCanonicalName("Lemúria");
+        service.findCanonicalName(" ");
+
+        MunicipioCacheStats stats = service.getCacheStats();
+        assertEquals(2, stats.hits());
+        assertEquals(2, stats.misses());
+        assertTrue(stats.ageSeconds() >= 0);
+    }
+
+    private MunicipioService newService(Path snapshot) {
+        MunicipioService service = new MunicipioService(client, objectMapper, snapshot.toString(),
+                Duration.ofMinutes(5), new CircuitBreaker(3, Duration.ofMinutes(1), Clock.systemUTC()));
+        service.loadSnapshot();
+        return service;
+    }
+}
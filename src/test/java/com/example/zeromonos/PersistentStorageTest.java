@@ -0,0 +1,121 @@
+package com.example.zeromonos;
+
+import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingRepository;
+import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.service.BookingLedger;
+import com.example.zeromonos.service.BookingService;
+import com.example.zeromonos.service.StorageBackup;
+import com.example.zeromonos.service.StorageBackupService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Perfil persistent: H2 em ficheiro com o esquema do Flyway, bookings e ocupação que sobrevivem
+ * a reinícios, e cópias de segurança feitas com a aplicação a correr.
+ */
+class PersistentStorageTest {
+
+    @TempDir
+    Path storage;
+
+    @Test
+    void BookingsAndLedgerSurviveRestarts() throws Exception {
+        LocalDate date = weekday();
+        String kept;
+        String cancelled;
+        try (ConfigurableApplicationContext app = start()) {
+            BookingService service = app.getBean(BookingService.class);
+            kept = service.createBooking(booking(date, "09:00-11:00")).getToken();
+            cancelled = service.createBooking(booking(date, "11:00-13:00")).getToken();
+            assertEquals(1, app.getBean(JdbcTemplate.class)
+                    .queryForObject("select count(*) from \"flyway_schema_history\" where \"version\" = '1' and \"success\"", Integer.class));
+        }
+        Path snapshot = storage.resolve("ledger.snapshot");
+        assertTrue(Files.exists(snapshot));
+
+        // Segundo arranque: uma transição; a fotografia gravada ao desligar é depois trocada pela
+        // anterior, como se a aplicação tivesse terminado sem a gravar
+        Path stale = storage.resolve("ledger.stale");
+        Files.copy(snapshot, stale);
+        try (ConfigurableApplicationContext app = start()) {
+            assertEquals(2, app.getBean(BookingRepository.class).count());
+            app.getBean(BookingService.class).updateBookingStatus(cancelled, BookingState.CANCELADO);
+        }
+        Files.move(stale, snapshot, StandardCopyOption.REPLACE_EXISTING);
+
+        try (ConfigurableApplicationContext app = start()) {
+            BookingLedger ledger = app.getBean(BookingLedger.class);
+            assertEquals(2, ledger.countForDay("Lisboa", date));
+            assertTrue(ledger.isSlotTaken(date, "09:00-11:00"));
+            assertFalse(ledger.isSlotTaken(date, "11:00-13:00"));
+            assertEquals(1, ledger.countActive());
+            assertEquals(BookingState.RECEBIDO,
+                    app.getBean(BookingService.class).getBookingViewByToken(kept).orElseThrow().status());
+        }
+    }
+
+    @Test
+    void OnlineBackupKeepsNewestCopies() throws Exception {
+        try (ConfigurableApplicationContext app = start("bookings.storage.backup-retention=2")) {
+            app.getBean(BookingService.class).createBooking(booking(weekday(), "09:00-11:00"));
+            StorageBackupService backups = app.getBean(StorageBackupService.class);
+
+            StorageBackup first = backups.backup();
+            backups.backup();
+            StorageBackup last = backups.backup();
+
+            assertEquals(2, backups.listBackups().size());
+            assertFalse(Files.exists(Path.of(first.file())));
+            assertTrue(last.sizeBytes() > 0);
+            try (ZipFile zip = new ZipFile(last.file())) {
+                assertTrue(zip.stream().anyMatch(e -> e.getName().endsWith(".mv.db")));
+            }
+        }
+    }
+
+    // Como argumentos de linha de comandos, para se sobreporem a application-persistent.properties
+    private ConfigurableApplicationContext start(String... extra) {
+        List<String> args = new ArrayList<>(List.of("--server.port=0",
+                "--bookings.storage.dir=" + storage,
+                "--municipios.refresh-initial-delay=PT1H",
+                "--logging.level.com.example.zeromonos=WARN"));
+        Arrays.stream(extra).map(arg -> "--" + arg).forEach(args::add);
+        return new SpringApplicationBuilder(ZeromonosApplication.class)
+                .profiles("persistent")
+                .run(args.toArray(String[]::new));
+    }
+
+    private static Booking booking(LocalDate date, String timeSlot) {
+        Booking booking = new Booking();
+        booking.setMunicipality("Lisboa");
+        booking.setDescription("Persistente");
+        booking.setRequestedDate(date);
+        booking.setTimeSlot(timeSlot);
+        return booking;
+    }
+
+    // Garante que não cai num fim de semana
+    private static LocalDate weekday() {
+        LocalDate date = LocalDate.now().plusDays(5);
+        while (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            date = date.plusDays(1);
+        }
+        return date;
+    }
+}
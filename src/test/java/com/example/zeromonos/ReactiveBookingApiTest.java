@@ -0,0 +1,203 @@
+package com.example.zeromonos;
+
+import com.example.zeromonos.boundary.BookingController;
+import com.example.zeromonos.boundary.ReactiveBookingController;
+import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingRepository;
+import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.data.BookingView;
+import com.example.zeromonos.service.BookingEventStream;
+import com.example.zeromonos.service.MunicipioClient;
+import com.example.zeromonos.service.WebClientMunicipioClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.reactive.context.ReactiveWebApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A mesma API de bookings no perfil reactive: WebFlux, leituras por R2DBC e gravações pelo BookingService.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"municipios.refresh-initial-delay=PT1H", "bookings.admission.max-active=100"})
+@ActiveProfiles("reactive")
+class ReactiveBookingApiTest {
+
+    private static final String[] SLOTS = {"09:00-11:00", "11:00-13:00", "13:00-15:00"};
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingEventStream eventStream;
+
+    private LocalDate requestedDate;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+
+        // Garante que não cai num fim de semana
+        LocalDate date = LocalDate.now().plusDays(5);
+        while (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            date = date.plusDays(1);
+        }
+        requestedDate = date;
+    }
+
+    @Test
+    void RunsOnWebFluxWithWebClientCatalog() {
+        assertInstanceOf(ReactiveWebApplicationContext.class, context);
+        assertTrue(context.getBeansOfType(BookingController.class).isEmpty());
+        assertEquals(1, context.getBeansOfType(ReactiveBookingController.class).size());
+        assertInstanceOf(WebClientMunicipioClient.class, context.getBean(MunicipioClient.class));
+
+        client.get().uri("/api/municipios").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[?(@ == 'Lisboa')]").exists();
+    }
+
+    @Test
+    void CreateReadAndTransitionBooking() {
+        BookingView created = client.post().uri("/api/bookings")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("municipality", "lisboa", "description", "Reativo",
+                        "requestedDate", requestedDate.toString(), "timeSlot", SLOTS[0]))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BookingView.class).returnResult().getResponseBody();
+        assertNotNull(created);
+        assertEquals("Lisboa", created.municipality());
+
+        client.get().uri("/api/bookings/{token}", created.token()).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("RECEBIDO")
+                .jsonPath("$.id").doesNotExist();
+
+        client.put().uri(uri -> uri.path("/api/bookings/{token}").queryParam("status", "EM_PROG").build(created.token()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.status").isEqualTo("EM_PROG");
+
+        client.get().uri("/api/bookings?municipality=LISBOA&status=EM_PROG").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].token").isEqualTo(created.token());
+    }
+
+    @Test
+    void ListPagesWithKeysetCursor() {
+        List<String> tokens = List.of(saved(0).getToken(), saved(1).getToken(), saved(2).getToken());
+
+        var first = client.get().uri("/api/bookings?size=2").exchange()
+                .expectStatus().isOk()
+                .expectBodyList(BookingView.class).returnResult();
+        String cursor = first.getResponseHeaders().getFirst("X-Next-Cursor");
+        assertNotNull(cursor);
+
+        List<BookingView> rest = client.get().uri(uri -> uri.path("/api/bookings").queryParam("after", cursor).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist("X-Next-Cursor")
+                .expectBodyList(BookingView.class).returnResult().getResponseBody();
+
+        assertEquals(2, first.getResponseBody().size());
+        assertEquals(1, rest.size());
+        assertEquals(3, Stream.concat(first.getResponseBody().stream(), rest.stream())
+                .map(BookingView::token).filter(tokens::contains).distinct().count());
+    }
+
+    @Test
+    void InvalidPageSizeIsBadRequest() {
+        client.get().uri("/api/bookings?size=0").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").exists();
+    }
+
+    @Test
+    void ChangesAndExportReadThroughR2dbc() {
+        String start = client.get().uri("/api/bookings/changes").exchange()
+                .expectStatus().isOk()
+                .returnResult(BookingView.class).getResponseHeaders().getFirst("X-Next-Cursor");
+        Booking booking = saved(0);
+        saved(1);
+
+        client.get().uri(uri -> uri.path("/api/bookings/changes").queryParam("since", start).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].token").isEqualTo(booking.getToken());
+
+        List<BookingView> exported = client.get().uri("/api/bookings/export")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(BookingView.class).getResponseBody()
+                .collectList().block(Duration.ofSeconds(5));
+        assertEquals(2, exported.size());
+    }
+
+    @Test
+    void EventStreamPushesStatusChanges() throws Exception {
+        Booking booking = saved(0);
+        int before = eventStream.subscriberCount();
+
+        CompletableFuture<ServerSentEvent<BookingView>> received = client.get()
+                .uri("/api/bookings/events?municipality=Lisboa")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<BookingView>>() {})
+                .getResponseBody()
+                .filter(event -> event.event() != null)
+                .next()
+                .toFuture();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (eventStream.subscriberCount() == before && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        client.delete().uri("/api/bookings/{token}", booking.getToken()).exchange().expectStatus().isOk();
+
+        ServerSentEvent<BookingView> event = received.get(5, TimeUnit.SECONDS);
+        assertEquals("booking", event.event());
+        assertEquals(booking.getToken(), event.data().token());
+        assertEquals(BookingState.CANCELADO, event.data().status());
+    }
+
+    private Booking saved(int i) {
+        Booking booking = Booking.newRequest();
+        booking.setMunicipality("Lisboa");
+        booking.setDescription("Reativo " + i);
+        booking.setRequestedDate(requestedDate);
+        booking.setTimeSlot(SLOTS[i]);
+        return bookingRepository.save(booking);
+    }
+}
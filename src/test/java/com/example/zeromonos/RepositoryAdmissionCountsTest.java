@@ -0,0 +1,65 @@
+package com.example.zeromonos;
+
+import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingRepository;
+import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.data.ChangeSequence;
+import com.example.zeromonos.service.RepositoryAdmissionCounts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(ChangeSequence.class)
+class RepositoryAdmissionCountsTest {
+
+    private static final LocalDate DATE = LocalDate.of(2030, 1, 7);
+
+    @Autowired
+    private BookingRepository repository;
+
+    private RepositoryAdmissionCounts counts;
+
+    @BeforeEach
+    void setUp() {
+        counts = new RepositoryAdmissionCounts(repository);
+        repository.save(booking("Lisboa", "09:00-11:00", BookingState.RECEBIDO));
+        repository.save(booking("Lisboa", "11:00-13:00", BookingState.CANCELADO));
+        repository.save(booking("Porto", "13:00-15:00", BookingState.CONCLUIDO));
+    }
+
+    @Test
+    void CountsBookingsPerMunicipalityAndDay() {
+        assertEquals(2, counts.countForDay("Lisboa", DATE));
+        assertEquals(1, counts.countForDay("Porto", DATE));
+        assertEquals(0, counts.countForDay("Lisboa", DATE.plusDays(1)));
+    }
+
+    @Test
+    void CancelledBookingsDoNotTakeTheSlot() {
+        assertTrue(counts.isSlotTaken(DATE, "09:00-11:00"));
+        assertFalse(counts.isSlotTaken(DATE, "11:00-13:00"));
+        assertTrue(counts.isSlotTaken(DATE, "13:00-15:00"));
+    }
+
+    @Test
+    void CountsOnlyActiveBookings() {
+        assertEquals(1, counts.countActive());
+    }
+
+    private Booking booking(String municipality, String timeSlot, BookingState state) {
+        Booking b = Booking.newRequest();
+        b.setMunicipality(municipality);
+        b.setDescription("Teste");
+        b.setRequestedDate(DATE);
+        b.setTimeSlot(timeSlot);
+        b.addState(state);
+        return b;
+    }
+}
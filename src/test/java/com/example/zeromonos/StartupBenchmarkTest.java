@@ -0,0 +1,161 @@
+package com.example.zeromonos;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tempo até ao primeiro pedido com sucesso (GET /api/bookings) de uma instância acabada de lançar,
+ * em cada modo de arranque: JIT simples, inicialização preguiçosa, AppCDS, AOT e combinações.
+ * Mede o jar extraído em target/cds, por isso o build tem de vir antes:
+ * mvn package -DskipTests -Paot,cds && mvn test -Pbenchmark -Dtest=StartupBenchmarkTest
+ * (execuções por modo com -Dbenchmark.runs=3). Sem -Paot os modos AOT ficam de fora.
+ */
+@Tag("benchmark")
+class StartupBenchmarkTest {
+
+    private static final Path CDS_DIR = Path.of("target", "cds");
+    private static final Path ARCHIVE = CDS_DIR.resolve("application.jsa");
+    private static final String AOT_INITIALIZER = "com/example/zeromonos/ZeromonosApplication__ApplicationContextInitializer.class";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(120);
+
+    private final int runs = Integer.getInteger("benchmark.runs", 3);
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    @TempDir
+    Path logs;
+
+    @Test
+    void timeToFirstRequestPerStartupMode() throws Exception {
+        Path jar = applicationJar();
+        assumeTrue(jar != null && Files.exists(ARCHIVE), "Falta o build: mvn package -DskipTests -Paot,cds");
+
+        Map<String, List<String>> modes = new LinkedHashMap<>();
+        modes.put("jit", List.of());
+        modes.put("lazy", List.of("-Dspring.main.lazy-initialization=true"));
+        modes.put("cds", List.of("-XX:SharedArchiveFile=" + ARCHIVE.getFileName()));
+        if (hasAotClasses(jar)) {
+            modes.put("aot", List.of("-Dspring.aot.enabled=true"));
+            modes.put("aot+cds", List.of("-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + ARCHIVE.getFileName()));
+            modes.put("aot+cds+lazy", List.of("-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + ARCHIVE.getFileName(),
+                    "-Dspring.main.lazy-initialization=true"));
+        }
+
+        // Uma execução fora da medição, para a cache de ficheiros do sistema; depois os modos alternam
+        // em cada ronda, para que nenhum fique com a máquina mais ou menos ocupada do que os outros
+        timeToFirstRequest(jar, "aquecimento", List.of());
+        Map<String, List<Long>> results = new LinkedHashMap<>();
+        for (int round = 0; round < runs; round++) {
+            for (Map.Entry<String, List<String>> mode : modes.entrySet()) {
+                results.computeIfAbsent(mode.getKey(), m -> new ArrayList<>())
+                        .add(timeToFirstRequest(jar, mode.getKey() + "-" + round, mode.getValue()));
+            }
+        }
+
+        long baseline = median(results.get("jit"));
+        for (Map.Entry<String, List<Long>> result : results.entrySet()) {
+            long median = median(result.getValue());
+            System.out.printf("%-13s execuções=%d  mediana=%,dms  mín=%,dms  vs jit=%.2fx%n",
+                    result.getKey(), result.getValue().size(), median,
+                    result.getValue().stream().mapToLong(Long::longValue).min().orElseThrow(),
+                    (double) baseline / median);
+        }
+
+        assertThat(results.values()).allSatisfy(times -> assertThat(times).hasSize(runs));
+    }
+
+    // Do lançamento do processo até à primeira resposta 200
+    private long timeToFirstRequest(Path jar, String name, List<String> jvmArgs) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.addAll(List.of("-jar", jar.getFileName().toString(),
+                "--server.port=" + port,
+                "--municipios.refresh-initial-delay=PT1H"));
+        Path log = logs.resolve(name + ".log");
+        URI uri = URI.create("http://localhost:" + port + "/api/bookings?size=1");
+
+        long begin = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(CDS_DIR.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            long deadline = begin + STARTUP_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("A aplicação terminou no arranque (" + name + "):\n" + tail(log));
+                }
+                try {
+                    if (http.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+                    }
+                } catch (IOException e) {
+                    // Ainda sem servidor à escuta
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("Sem resposta ao fim de " + STARTUP_TIMEOUT + " (" + name + "):\n" + tail(log));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static Path applicationJar() throws IOException {
+        if (!Files.isDirectory(CDS_DIR)) {
+            return null;
+        }
+        try (var files = Files.list(CDS_DIR)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".jar")).findFirst().orElse(null);
+        }
+    }
+
+    private static boolean hasAotClasses(Path jar) throws IOException {
+        try (JarFile file = new JarFile(jar.toFile())) {
+            return file.getEntry(AOT_INITIALIZER) != null;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(List<Long> times) {
+        long[] sorted = times.stream().mapToLong(Long::longValue).sorted().toArray();
+        return sorted[sorted.length / 2];
+    }
+
+    private static String tail(Path log) throws IOException {
+        List<String> lines = Files.readAllLines(log);
+        return String.join("\n", lines.subList(Math.max(0, lines.size() - 30), lines.size()));
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.zeromonos;
+
+import com.example.zeromonos.data.Booking;
+import com.example.zeromonos.data.BookingRepository;
+import com.example.zeromonos.data.BookingState;
+import com.example.zeromonos.data.BookingStateHistory;
+import com.example.zeromonos.service.BookingService;
+import com.example.zeromonos.service.WriteBehindHistorySink;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Histórico em write-behind: a transição faz commit sem a linha de histórico, que é gravada
+ * mais tarde (aqui só no encerramento, dado o intervalo longo) ou reposta a partir do journal.
+ */
+@SpringBootTest(properties = {
+        "bookings.history.mode=write-behind",
+        "bookings.history.flush-interval=PT1H",
+        "bookings.history.batch-size=1000"
+})
+class WriteBehindHistoryTest {
+
+    @TempDir
+    static Path journalDir;
+
+    @DynamicPropertySource
+    static void journal(DynamicPropertyRegistry registry) {
+        registry.add("bookings.history.journal-dir", () -> journalDir.toString());
+    }
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private WriteBehindHistorySink historySink;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository.deleteAll();
+    }
+
+    @Test
+    @DirtiesContext
+    void TransitionCommitsFirstAndShutdownDrainsHistory() throws Exception {
+        Booking booking = saved(BookingState.RECEBIDO);
+
+        bookingService.updateBookingStatus(booking.getToken(), BookingState.EM_PROG);
+
+        assertEquals(List.of(BookingState.RECEBIDO), history(booking));
+        assertEquals(1, journalFiles().size());
+
+        historySink.stop();
+
+        assertEquals(List.of(BookingState.RECEBIDO, BookingState.EM_PROG), history(booking));
+        assertTrue(journalFiles().isEmpty());
+    }
+
+    @Test
+    void RecoveryReplaysOnlyMissingConfirmedEntries() throws Exception {
+        Booking booking = saved(BookingState.EM_PROG);
+        LocalDateTime now = LocalDateTime.now();
+        // Uma entrada por gravar, uma repetida e uma de uma transação que nunca chegou a commit
+        Files.writeString(journalDir.resolve("history-0000000000000000099.journal"),
+                booking.getId() + ";EM_PROG;" + now + "\n"
+                        + booking.getId() + ";RECEBIDO;" + now + "\n"
+                        + booking.getId() + ";CONCLUIDO;" + now + "\n");
+
+        historySink.recover();
+        historySink.recover();
+
+        assertEquals(List.of(BookingState.RECEBIDO, BookingState.EM_PROG), history(booking));
+        assertTrue(journalFiles().isEmpty());
+    }
+
+    // Booking gravado só com a linha RECEBIDO, com o estado atual indicado
+    private Booking saved(BookingState status) {
+        Booking booking = Booking.newRequest();
+        booking.setMunicipality("Lisboa");
+        booking.setDescription("Write-behind");
+        booking.setRequestedDate(LocalDate.of(2030, 1, 7));
+        booking.setTimeSlot("09:00-11:00");
+        bookingRepository.save(booking);
+        if (status != BookingState.RECEBIDO) {
+            jdbcTemplate.update("UPDATE booking SET status = ? WHERE id = ?", status.name(), booking.getId());
+        }
+        return booking;
+    }
+
+    private List<BookingState> history(Booking booking) {
+        return bookingRepository.fetchHistory(List.of(booking)).get(0).getStateHistory().stream()
+                .map(BookingStateHistory::getStatus)
+                .toList();
+    }
+
+    private static List<Path> journalFiles() throws IOException {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.toList();
+        }
+    }
+}